@@ -0,0 +1,97 @@
+package models;
+
+import java.util.*;
+
+/**
+ Plans the composition of trains for a pool of wagons and a pool of engines.
+ Each train only pulls wagons of a single kind and no more wagons than its engine can pull.
+ The planner aims for the minimal number of trains with a greedy heuristic:
+ the kind with the largest number of wagons still to be planned gets the largest available engine,
+ unless some engine can take all remaining wagons of that kind, in which case the smallest such engine is used.
+ Planning takes O(W + E log E) time for W wagons and E engines.
+ */
+public class CompositionPlanner {
+    private final String origin;
+    private final String destination;
+    private final List<Wagon> unassignedWagons = new ArrayList<>();
+
+    public CompositionPlanner(String origin, String destination) {
+        this.origin = origin;
+        this.destination = destination;
+    }
+
+    /**
+     * Assigns the wagons to trains pulled by the given engines.
+     * The wagons shall be loose: not held by a train and not linked to other wagons.
+     * The assigned wagons are linked into the sequences of the planned trains,
+     * the unassigned wagons are left unchanged and are reported by getUnassignedWagons.
+     *
+     * @param wagons  the pool of wagons to be assigned
+     * @param engines the pool of available engines, each engine pulls at most one train
+     * @return the planned trains, with the wagons of each kind in the order of the pool
+     * @throws IllegalArgumentException if a wagon is held by a train or linked to another wagon,
+     *                                  in which case no wagon has been changed
+     */
+    public List<Train> plan(Collection<? extends Wagon> wagons, Collection<Locomotive> engines) {
+        unassignedWagons.clear();
+
+        // group the wagons by kind, preserving their order in the pool
+        Map<Wagon.Kind, Deque<Wagon>> wagonsByKind = new EnumMap<>(Wagon.Kind.class);
+        for (Wagon wagon : wagons) {
+            if (wagon.getTrain() != null || wagon.hasPreviousWagon() || wagon.hasNextWagon()) {
+                throw new IllegalArgumentException(String.format("Wagon %s is not loose", wagon));
+            }
+            wagonsByKind.computeIfAbsent(wagon.getKind(), kind -> new ArrayDeque<>()).add(wagon);
+        }
+
+        // organise the available engines by capacity, for retrieval of the largest engine
+        // and of the smallest engine that can pull a given number of wagons
+        TreeMap<Integer, Deque<Locomotive>> enginesByCapacity = new TreeMap<>();
+        for (Locomotive engine : engines) {
+            if (engine.getMaxWagons() > 0) {
+                enginesByCapacity.computeIfAbsent(engine.getMaxWagons(), capacity -> new ArrayDeque<>()).add(engine);
+            }
+        }
+
+        // the kinds in order of decreasing number of wagons that still need a train
+        PriorityQueue<Deque<Wagon>> demand = new PriorityQueue<>(Comparator.comparingInt(Deque<Wagon>::size).reversed());
+        demand.addAll(wagonsByKind.values());
+
+        List<Train> trains = new ArrayList<>();
+        while (!demand.isEmpty() && !enginesByCapacity.isEmpty()) {
+            Deque<Wagon> group = demand.poll();
+            // prefer the smallest engine that can take the complete group, otherwise the largest engine
+            Map.Entry<Integer, Deque<Locomotive>> fit = enginesByCapacity.ceilingEntry(group.size());
+            if (fit == null) {
+                fit = enginesByCapacity.lastEntry();
+            }
+            Locomotive engine = fit.getValue().poll();
+            if (fit.getValue().isEmpty()) {
+                enginesByCapacity.remove(fit.getKey());
+            }
+
+            Train train = new Train(engine, origin, destination);
+            for (int i = 0; i < engine.getMaxWagons() && !group.isEmpty(); i++) {
+                train.attachToRear(group.poll());
+            }
+            trains.add(train);
+
+            if (!group.isEmpty()) {
+                demand.add(group);
+            }
+        }
+
+        // no engines left for the remaining wagons
+        for (Deque<Wagon> group : demand) {
+            unassignedWagons.addAll(group);
+        }
+        return trains;
+    }
+
+    /**
+     * @return the wagons that could not be assigned to a train in the latest plan
+     */
+    public List<Wagon> getUnassignedWagons() {
+        return unassignedWagons;
+    }
+}
@@ -0,0 +1,247 @@
+package models;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ A thread-safe variant of Train for parallel shunting.
+ Every train is guarded by its own lock. Operations that involve two trains (moveOneWagon and splitAtPosition)
+ acquire both locks in the order of the unique sequence numbers of the trains, so that two threads which
+ move wagons in opposite directions between the same trains cannot deadlock.
+ The number of wagons, the total number of seats and the total maximum weight are published together
+ in a single immutable record after each mutation, such that reading them never blocks a writer,
+ and the three aggregates read from one record always stem from the same mutation.
+
+ Wagons that are held by a ConcurrentTrain shall only be changed through the operations of the ConcurrentTrain.
+ Attaching a free wagon (by attachToRear, insertAtFront or insertAtPosition) is not guarded against other threads:
+ the caller shall make sure that a free wagon is attached to one train only, e.g. by handing out each free wagon
+ to a single thread. The check that the wagon is not held by another train only catches sequential misuse,
+ two threads that attach the same free wagon to different trains at the same time can both pass it.
+ */
+public class ConcurrentTrain {
+    private static final AtomicLong sequence = new AtomicLong();
+
+    private final long lockOrder = sequence.getAndIncrement();
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Train train;
+
+    /** the aggregates of the train after a mutation */
+    public record Aggregates(int numberOfWagons, int totalNumberOfSeats, int totalMaxWeight) {
+    }
+
+    // aggregates of train, published after each mutation
+    private volatile Aggregates aggregates = new Aggregates(0, 0, 0);
+
+    public ConcurrentTrain(Locomotive engine, String origin, String destination) {
+        this.train = new Train(engine, origin, destination);
+    }
+
+    public String getOrigin() {
+        return train.getOrigin();
+    }
+
+    public String getDestination() {
+        return train.getDestination();
+    }
+
+    public Locomotive getEngine() {
+        return train.getEngine();
+    }
+
+    /**
+     * @return the number of wagons, the total number of seats and the total maximum weight
+     *          after the latest completed mutation, consistently and without locking
+     */
+    public Aggregates getAggregates() {
+        return aggregates;
+    }
+
+    /**
+     * @return the number of wagons after the latest completed mutation, without locking
+     */
+    public int getNumberOfWagons() {
+        return aggregates.numberOfWagons();
+    }
+
+    /**
+     * @return the total number of seats after the latest completed mutation, without locking
+     */
+    public int getTotalNumberOfSeats() {
+        return aggregates.totalNumberOfSeats();
+    }
+
+    /**
+     * @return the total maximum weight after the latest completed mutation, without locking
+     */
+    public int getTotalMaxWeight() {
+        return aggregates.totalMaxWeight();
+    }
+
+    public boolean hasWagons() {
+        return aggregates.numberOfWagons() > 0;
+    }
+
+    public Wagon getFirstWagon() {
+        lock.lock();
+        try {
+            return train.getFirstWagon();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Wagon getLastWagonAttached() {
+        lock.lock();
+        try {
+            return train.getLastWagonAttached();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Wagon findWagonAtPosition(int position) {
+        lock.lock();
+        try {
+            return train.findWagonAtPosition(position);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public Wagon findWagonById(int wagonId) {
+        lock.lock();
+        try {
+            return train.findWagonById(wagonId);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * See Train.attachToRear.
+     * The sequence of wagons shall not be held by any other train, nor be attached concurrently by another thread,
+     * use moveOneWagon or splitAtPosition to move wagons between trains.
+     */
+    public boolean attachToRear(Wagon wagon) {
+        lock.lock();
+        try {
+            return !isHeldByOtherTrain(wagon) && publish(train.attachToRear(wagon));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * See Train.insertAtFront.
+     * The sequence of wagons shall not be held by any other train, nor be attached concurrently by another thread,
+     * use moveOneWagon or splitAtPosition to move wagons between trains.
+     */
+    public boolean insertAtFront(Wagon wagon) {
+        lock.lock();
+        try {
+            return !isHeldByOtherTrain(wagon) && publish(train.insertAtFront(wagon));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * See Train.insertAtPosition.
+     * The sequence of wagons shall not be held by any other train, nor be attached concurrently by another thread,
+     * use moveOneWagon or splitAtPosition to move wagons between trains.
+     */
+    public boolean insertAtPosition(int position, Wagon wagon) {
+        lock.lock();
+        try {
+            return !isHeldByOtherTrain(wagon) && publish(train.insertAtPosition(position, wagon));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Atomically moves one wagon from this train to the rear of toTrain, see Train.moveOneWagon
+     * Both trains are left unchanged if toTrain cannot take the wagon.
+     */
+    public boolean moveOneWagon(int wagonId, ConcurrentTrain toTrain) {
+        lockBoth(toTrain);
+        try {
+            boolean moved = train.moveOneWagon(wagonId, toTrain.train);
+            toTrain.publish(moved);
+            return publish(moved);
+        } finally {
+            unlockBoth(toTrain);
+        }
+    }
+
+    /**
+     * Atomically moves the sequence of wagons from the given position to the rear of toTrain,
+     * see Train.splitAtPosition
+     */
+    public boolean splitAtPosition(int position, ConcurrentTrain toTrain) {
+        lockBoth(toTrain);
+        try {
+            boolean moved = train.splitAtPosition(position, toTrain.train);
+            toTrain.publish(moved);
+            return publish(moved);
+        } finally {
+            unlockBoth(toTrain);
+        }
+    }
+
+    public void reverse() {
+        lock.lock();
+        try {
+            train.reverse();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public String toString() {
+        lock.lock();
+        try {
+            return train.toString();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * checks for wagons that have been attached to another train before, this is no guard against
+     * concurrent attachments of the same free wagon (see the class comment)
+     * @return whether the wagon is null or held by another train
+     */
+    private boolean isHeldByOtherTrain(Wagon wagon) {
+        return wagon == null || wagon.getTrain() != null && wagon.getTrain() != train;
+    }
+
+    /**
+     * publishes the aggregates of the train after a successful mutation
+     *
+     * @param changed whether the train has been changed
+     * @return changed
+     */
+    private boolean publish(boolean changed) {
+        if (changed) {
+            aggregates = new Aggregates(train.getNumberOfWagons(), train.getTotalNumberOfSeats(), train.getTotalMaxWeight());
+        }
+        return changed;
+    }
+
+    private void lockBoth(ConcurrentTrain other) {
+        if (lockOrder <= other.lockOrder) {
+            lock.lock();
+            other.lock.lock();
+        } else {
+            other.lock.lock();
+            lock.lock();
+        }
+    }
+
+    private void unlockBoth(ConcurrentTrain other) {
+        other.lock.unlock();
+        lock.unlock();
+    }
+}
@@ -0,0 +1,238 @@
+package models;
+
+import java.util.*;
+
+/**
+ A registry of many trains with secondary indexes for fleet-wide queries:
+ by origin, by destination, by headroom (the number of wagons that the engine can still pull)
+ for each kind of wagons that a train can take, and by wagon id onto the train that holds the wagon.
+
+ Trains report every change of their composition to their fleet, which only marks them as changed.
+ The indexes of changed trains are brought up to date at the next query, in O(log T) time per train,
+ such that queries take O(log T + k) time for T trains in the fleet and k trains in the result.
+ */
+public class Fleet {
+
+    /** trains by headroom, for each kind of wagons that they can take */
+    private static class HeadroomIndex {
+        final Map<Wagon.Kind, TreeMap<Integer, Set<Train>>> byKind = new EnumMap<>(Wagon.Kind.class);
+        final TreeMap<Integer, Set<Train>> withoutWagons = new TreeMap<>();
+
+        TreeMap<Integer, Set<Train>> of(Wagon.Kind kind) {
+            return kind == null ? withoutWagons : byKind.computeIfAbsent(kind, k -> new TreeMap<>());
+        }
+
+        void add(Wagon.Kind kind, int headroom, Train train) {
+            of(kind).computeIfAbsent(headroom, h -> new HashSet<>()).add(train);
+        }
+
+        void remove(Wagon.Kind kind, int headroom, Train train) {
+            TreeMap<Integer, Set<Train>> trains = of(kind);
+            Set<Train> withHeadroom = trains.get(headroom);
+            withHeadroom.remove(train);
+            if (withHeadroom.isEmpty()) {
+                trains.remove(headroom);
+            }
+        }
+
+        /**
+         * adds all trains that can take the given number of wagons of the given kind to the result
+         */
+        void collect(Wagon.Kind kind, int numberOfWagons, List<Train> result) {
+            for (Set<Train> trains : of(kind).tailMap(numberOfWagons, true).values()) {
+                result.addAll(trains);
+            }
+            for (Set<Train> trains : withoutWagons.tailMap(numberOfWagons, true).values()) {
+                result.addAll(trains);
+            }
+        }
+    }
+
+    /** the state of a train as it is currently indexed */
+    private static class Entry {
+        Wagon.Kind kind;        // the kind of the wagons of the train, or null if the train has no wagons
+        int headroom;
+    }
+
+    private final Map<Train, Entry> trains = new HashMap<>();
+    private final Map<String, Set<Train>> byOrigin = new HashMap<>();
+    private final Map<String, Set<Train>> byDestination = new HashMap<>();
+    private final HeadroomIndex headroom = new HeadroomIndex();
+    private final Map<String, HeadroomIndex> headroomByDestination = new HashMap<>();
+    private final Map<Integer, Train> trainsByWagonId = new HashMap<>();
+    private final Set<Train> changedTrains = new LinkedHashSet<>();
+    private boolean refreshing;         // whether the indexes of the changed trains are being brought up to date
+
+    /**
+     * Adds the train to the fleet, in O(n) time for a train of n wagons
+     *
+     * @return whether the train has been added, false if it was in this fleet already
+     * @throws IllegalArgumentException if the train is part of another fleet
+     */
+    public boolean add(Train train) {
+        if (train.getFleet() == this) {
+            return false;
+        }
+        if (train.getFleet() != null) {
+            throw new IllegalArgumentException("The train is part of another fleet already");
+        }
+        train.setFleet(this);
+        byOrigin.computeIfAbsent(train.getOrigin(), origin -> new HashSet<>()).add(train);
+        byDestination.computeIfAbsent(train.getDestination(), destination -> new HashSet<>()).add(train);
+        Entry entry = new Entry();
+        entry.kind = kindOf(train);
+        entry.headroom = headroomOf(train);
+        trains.put(train, entry);
+        headroom.add(entry.kind, entry.headroom, train);
+        headroomByDestination.computeIfAbsent(train.getDestination(), destination -> new HeadroomIndex())
+                .add(entry.kind, entry.headroom, train);
+        for (Wagon wagon = train.getFirstWagon(); wagon != null; wagon = wagon.getNextWagon()) {
+            trainsByWagonId.put(wagon.getId(), train);
+        }
+        return true;
+    }
+
+    /**
+     * Removes the train from the fleet
+     *
+     * @return whether the train has been removed, false if it was not part of this fleet
+     */
+    public boolean remove(Train train) {
+        Entry entry = trains.remove(train);
+        if (entry == null) {
+            return false;
+        }
+        train.setFleet(null);
+        changedTrains.remove(train);
+        removeFrom(byOrigin, train.getOrigin(), train);
+        removeFrom(byDestination, train.getDestination(), train);
+        headroom.remove(entry.kind, entry.headroom, train);
+        headroomByDestination.get(train.getDestination()).remove(entry.kind, entry.headroom, train);
+        // the wagon ids of the train are removed lazily by findTrainByWagonId
+        return true;
+    }
+
+    public int size() {
+        return trains.size();
+    }
+
+    public boolean contains(Train train) {
+        return trains.containsKey(train);
+    }
+
+    public Set<Train> findByOrigin(String origin) {
+        return Collections.unmodifiableSet(byOrigin.getOrDefault(origin, Set.of()));
+    }
+
+    public Set<Train> findByDestination(String destination) {
+        return Collections.unmodifiableSet(byDestination.getOrDefault(destination, Set.of()));
+    }
+
+    /**
+     * Finds the trains that can still take the given number of wagons of the given kind,
+     * i.e. trains without wagons or with wagons of that kind, which have sufficient headroom
+     *
+     * @return the trains in order of increasing headroom, first those with wagons of the kind
+     */
+    public List<Train> findTrainsThatCanTake(int numberOfWagons, Wagon.Kind kind) {
+        refresh();
+        List<Train> result = new ArrayList<>();
+        headroom.collect(kind, numberOfWagons, result);
+        return result;
+    }
+
+    /**
+     * Finds the trains to the given destination that can still take the given number of wagons of the given kind,
+     * e.g. which trains to Amsterdam can still take 5 passenger wagons
+     *
+     * @return the trains in order of increasing headroom, first those with wagons of the kind
+     */
+    public List<Train> findTrainsThatCanTake(String destination, int numberOfWagons, Wagon.Kind kind) {
+        refresh();
+        List<Train> result = new ArrayList<>();
+        HeadroomIndex index = headroomByDestination.get(destination);
+        if (index != null) {
+            index.collect(kind, numberOfWagons, result);
+        }
+        return result;
+    }
+
+    /**
+     * @return the train in this fleet that holds the wagon with the given id (or null if there is no such train)
+     */
+    public Train findTrainByWagonId(int wagonId) {
+        refresh();
+        Train train = trainsByWagonId.get(wagonId);
+        if (train != null && (!trains.containsKey(train) || train.findWagonById(wagonId) == null)) {
+            // the wagon has left the train (and this fleet) since it has been indexed
+            trainsByWagonId.remove(wagonId);
+            return null;
+        }
+        return train;
+    }
+
+    /**
+     * Called by a train of this fleet whenever its composition may have changed.
+     * Changes that are reported while the fleet recalculates the aggregates of its changed trains are ignored:
+     * those only occur when trains share wagons, and would make the trains invalidate each other endlessly.
+     */
+    void changed(Train train) {
+        if (!refreshing) {
+            changedTrains.add(train);
+        }
+    }
+
+    /**
+     * Called by a train of this fleet for every wagon that it takes on
+     */
+    void attached(Wagon wagon, Train train) {
+        trainsByWagonId.put(wagon.getId(), train);
+    }
+
+    /**
+     * brings the indexes of all changed trains up to date
+     */
+    private void refresh() {
+        if (changedTrains.isEmpty()) {
+            return;
+        }
+        List<Train> outdated = new ArrayList<>(changedTrains);
+        changedTrains.clear();
+        refreshing = true;
+        try {
+            for (Train train : outdated) {
+                // recalculating the aggregates of an outdated train may invalidate other trains that share its wagons
+                int newHeadroom = headroomOf(train);
+                Entry entry = trains.get(train);
+                Wagon.Kind newKind = kindOf(train);
+                if (entry != null && (entry.kind != newKind || entry.headroom != newHeadroom)) {
+                    HeadroomIndex destinationIndex = headroomByDestination.get(train.getDestination());
+                    headroom.remove(entry.kind, entry.headroom, train);
+                    destinationIndex.remove(entry.kind, entry.headroom, train);
+                    entry.kind = newKind;
+                    entry.headroom = newHeadroom;
+                    headroom.add(entry.kind, entry.headroom, train);
+                    destinationIndex.add(entry.kind, entry.headroom, train);
+                }
+            }
+        } finally {
+            refreshing = false;
+        }
+    }
+
+    private static void removeFrom(Map<String, Set<Train>> index, String key, Train train) {
+        Set<Train> trains = index.get(key);
+        trains.remove(train);
+        if (trains.isEmpty()) {
+            index.remove(key);
+        }
+    }
+
+    private static Wagon.Kind kindOf(Train train) {
+        return train.hasWagons() ? train.getFirstWagon().getKind() : null;
+    }
+
+    private static int headroomOf(Train train) {
+        return train.getEngine().getMaxWagons() - train.getNumberOfWagons();
+    }
+}
@@ -0,0 +1,211 @@
+package models;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ A compact binary file format for a fleet of trains.
+ All numbers are big-endian ints, strings are an int length followed by UTF-8 bytes:
+
+    file:   MAGIC  VERSION  numberOfTrains  train*
+    train:  locNumber  maxWagons  origin  destination  numberOfWagons  wagon*
+    wagon:  id  type  capacity          (type is TrainStore.PASSENGER or TrainStore.FREIGHT,
+                                         capacity is the number of seats or the maximum weight)
+
+ The reader maps the file into memory and decodes the fixed size wagon records directly from the mapping,
+ so loading does not parse any text and does not copy the file through intermediate buffers.
+ */
+public class FleetFile {
+    public static final int MAGIC = 0x54524e53;     // "TRNS"
+    public static final int VERSION = 1;
+
+    // the size of a train without wagons and with empty origin and destination
+    private static final int MIN_TRAIN_SIZE = 5 * Integer.BYTES;
+
+    private FleetFile() {
+    }
+
+    /**
+     * Writes the composition of the trains to the given file, replacing any existing content
+     *
+     * @throws IllegalArgumentException if a train holds a wagon that is neither a passenger nor a freight wagon
+     */
+    public static void write(Collection<Train> fleet, Path file) throws IOException {
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            out.writeInt(fleet.size());
+            for (Train train : fleet) {
+                out.writeInt(train.getEngine().getLocNumber());
+                out.writeInt(train.getEngine().getMaxWagons());
+                writeString(out, train.getOrigin());
+                writeString(out, train.getDestination());
+                out.writeInt(train.getNumberOfWagons());
+                for (Wagon wagon = train.getFirstWagon(); wagon != null; wagon = wagon.getNextWagon()) {
+                    out.writeInt(wagon.getId());
+                    switch (wagon.kind) {
+                        case PASSENGER:
+                            out.writeInt(TrainStore.PASSENGER);
+                            out.writeInt(wagon.numberOfSeats);
+                            break;
+                        case FREIGHT:
+                            out.writeInt(TrainStore.FREIGHT);
+                            out.writeInt(wagon.maxWeight);
+                            break;
+                        default:
+                            throw new IllegalArgumentException(String.format("Wagon %s of kind %s cannot be written",
+                                    wagon, wagon.kind));
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Reads a fleet of trains, with new wagons, from the given file
+     *
+     * @return the trains in the order in which they were written
+     * @throws IOException if the file cannot be read or is not a valid fleet file
+     */
+    public static List<Train> read(Path file) throws IOException {
+        MappedByteBuffer buffer = map(file);
+        try {
+            int numberOfTrains = readHeader(buffer);
+            List<Train> fleet = new ArrayList<>(numberOfTrains);
+            for (int t = 0; t < numberOfTrains; t++) {
+                Train train = new Train(new Locomotive(buffer.getInt(), buffer.getInt()),
+                        readString(buffer), readString(buffer));
+                int numberOfWagons = buffer.getInt();
+
+                // link the wagons into one sequence first, such that the train adopts them in a single pass
+                Wagon head = null, tail = null;
+                for (int w = 0; w < numberOfWagons; w++) {
+                    int id = buffer.getInt();
+                    int type = readType(buffer, file);
+                    int capacity = buffer.getInt();
+                    Wagon wagon = type == TrainStore.PASSENGER ? new PassengerWagon(id, capacity) : new FreightWagon(id, capacity);
+                    if (head == null) {
+                        head = wagon;
+                    } else {
+                        tail.attachTail(wagon);
+                    }
+                    tail = wagon;
+                }
+                if (head != null && !train.attachToRear(head)) {
+                    throw new IOException(String.format("Invalid composition of train %d in %s", t, file));
+                }
+                fleet.add(train);
+            }
+            return fleet;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Unexpected end of " + file, e);
+        }
+    }
+
+    /**
+     * Reads a fleet of trains from the given file into the store, without creating Wagon objects
+     *
+     * @return the handles of the trains in the order in which they were written
+     * @throws IOException if the file cannot be read or is not a valid fleet file
+     */
+    public static int[] readInto(TrainStore store, Path file) throws IOException {
+        MappedByteBuffer buffer = map(file);
+        try {
+            int numberOfTrains = readHeader(buffer);
+            int[] trains = new int[numberOfTrains];
+            for (int t = 0; t < numberOfTrains; t++) {
+                trains[t] = store.addTrain(new Locomotive(buffer.getInt(), buffer.getInt()),
+                        readString(buffer), readString(buffer));
+                int numberOfWagons = buffer.getInt();
+
+                int head = TrainStore.NONE, tail = TrainStore.NONE;
+                for (int w = 0; w < numberOfWagons; w++) {
+                    int id = buffer.getInt();
+                    int type = readType(buffer, file);
+                    int capacity = buffer.getInt();
+                    int wagon = type == TrainStore.PASSENGER ? store.addPassengerWagon(id, capacity) : store.addFreightWagon(id, capacity);
+                    if (head == TrainStore.NONE) {
+                        head = wagon;
+                    } else {
+                        store.attachTail(tail, wagon);
+                    }
+                    tail = wagon;
+                }
+                if (head != TrainStore.NONE && !store.attachToRear(trains[t], head)) {
+                    throw new IOException(String.format("Invalid composition of train %d in %s", t, file));
+                }
+            }
+            return trains;
+        } catch (BufferUnderflowException e) {
+            throw new IOException("Unexpected end of " + file, e);
+        } catch (IllegalArgumentException e) {
+            throw new IOException("Invalid wagons in " + file, e);
+        }
+    }
+
+    private static MappedByteBuffer map(Path file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            // the mapping remains valid after the channel has been closed
+            return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+    }
+
+    /**
+     * verifies the header of the file
+     *
+     * @return the number of trains in the file
+     */
+    private static int readHeader(MappedByteBuffer buffer) throws IOException {
+        if (buffer.remaining() < 12 || buffer.getInt() != MAGIC) {
+            throw new IOException("Not a fleet file");
+        }
+        int version = buffer.getInt();
+        if (version != VERSION) {
+            throw new IOException("Unsupported fleet file version " + version);
+        }
+        int numberOfTrains = buffer.getInt();
+        if (numberOfTrains < 0 || (long) numberOfTrains * MIN_TRAIN_SIZE > buffer.remaining()) {
+            throw new IOException("Invalid number of trains " + numberOfTrains);
+        }
+        return numberOfTrains;
+    }
+
+    /**
+     * @return the type of the next wagon, TrainStore.PASSENGER or TrainStore.FREIGHT
+     * @throws IOException if the type is unknown
+     */
+    private static int readType(MappedByteBuffer buffer, Path file) throws IOException {
+        int type = buffer.getInt();
+        if (type != TrainStore.PASSENGER && type != TrainStore.FREIGHT) {
+            throw new IOException(String.format("Unknown wagon type %d in %s", type, file));
+        }
+        return type;
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(MappedByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
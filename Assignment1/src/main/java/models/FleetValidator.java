@@ -0,0 +1,127 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ Verifies the integrity of a fleet of trains in parallel, using fork-join over the trains.
+ For each train it checks:
+    the front-connection and tail-connection invariants of every wagon, and that the first wagon has no predecessor
+    that the engine can pull all wagons
+    that all wagons are of the same kind as the first wagon, as required by Train.canAttach
+ and across trains that no wagon is held by two trains.
+
+ The walk along a train stops at its first broken connection. If all connections along the walk are consistent,
+ the walk cannot return to an earlier wagon, so the sequence is free of cycles. For the same reason, two trains with
+ consistent connections can only share wagons if they share their first wagon, which is checked across all trains.
+ The validator only reads the connections of the wagons, it never recalculates the cached aggregates of a train.
+ */
+public class FleetValidator {
+    // the number of wagons below which a range of trains is validated without further splitting
+    private static final int SEQUENTIAL_THRESHOLD = 10_000;
+
+    private final ForkJoinPool pool;
+
+    public FleetValidator() {
+        this(ForkJoinPool.commonPool());
+    }
+
+    public FleetValidator(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    /**
+     * @param trains the trains of the fleet, the connections of their wagons shall not change during validation
+     * @return a description of every violation found, in the order of the trains (empty if the fleet is valid)
+     */
+    public List<String> validate(List<Train> trains) {
+        Set<Wagon> firstWagons = ConcurrentHashMap.newKeySet(trains.size());
+        return pool.invoke(new ValidationTask(trains, 0, trains.size(), firstWagons));
+    }
+
+    private static class ValidationTask extends RecursiveTask<List<String>> {
+        private static final long serialVersionUID = 1L;
+
+        private final List<Train> trains;
+        private final int from, to;
+        private final Set<Wagon> firstWagons;
+
+        ValidationTask(List<Train> trains, int from, int to, Set<Wagon> firstWagons) {
+            this.trains = trains;
+            this.from = from;
+            this.to = to;
+            this.firstWagons = firstWagons;
+        }
+
+        @Override
+        protected List<String> compute() {
+            if (to - from > 1 && estimatedWagons() > SEQUENTIAL_THRESHOLD) {
+                int middle = (from + to) >>> 1;
+                ValidationTask front = new ValidationTask(trains, from, middle, firstWagons);
+                ValidationTask rear = new ValidationTask(trains, middle, to, firstWagons);
+                front.fork();
+                List<String> violations = rear.compute();
+                List<String> frontViolations = front.join();
+                frontViolations.addAll(violations);
+                return frontViolations;
+            }
+            List<String> violations = new ArrayList<>();
+            for (int t = from; t < to; t++) {
+                validateTrain(t, violations);
+            }
+            return violations;
+        }
+
+        /**
+         * estimates the work of this range from the engine capacities, without walking the wagons
+         */
+        private long estimatedWagons() {
+            long total = 0;
+            for (int t = from; t < to && total <= SEQUENTIAL_THRESHOLD; t++) {
+                total += 1 + Math.max(0, trains.get(t).getEngine().getMaxWagons());
+            }
+            return total;
+        }
+
+        private void validateTrain(int t, List<String> violations) {
+            Train train = trains.get(t);
+            Wagon first = train.getFirstWagon();
+            if (first == null) {
+                return;
+            }
+            String name = String.format("Train %d from %s to %s", t, train.getOrigin(), train.getDestination());
+            if (first.hasPreviousWagon()) {
+                violations.add(String.format("%s: first wagon %s has previous wagon %s", name, first, first.getPreviousWagon()));
+                return;
+            }
+            if (!firstWagons.add(first)) {
+                violations.add(String.format("%s: wagon %s is held by another train as well", name, first));
+                return;
+            }
+
+            int numberOfWagons = 0;
+            boolean mixed = false;
+            for (Wagon wagon = first; wagon != null; wagon = wagon.getNextWagon()) {
+                numberOfWagons++;
+                if (wagon.kind != first.kind && !mixed) {
+                    violations.add(String.format("%s: wagon %s is not of kind %s", name, wagon, first.kind));
+                    mixed = true;
+                }
+                Wagon next = wagon.getNextWagon();
+                if (next != null && next.getPreviousWagon() != wagon) {
+                    violations.add(String.format("%s: wagon %s is pulling %s, which has been attached to %s",
+                            name, wagon, next, next.getPreviousWagon()));
+                    return;
+                }
+            }
+            if (numberOfWagons > train.getEngine().getMaxWagons()) {
+                violations.add(String.format("%s: %d wagons exceed the capacity of %d wagons of the engine",
+                        name, numberOfWagons, train.getEngine().getMaxWagons()));
+            }
+        }
+    }
+}
@@ -1,12 +1,8 @@
 package models;
 public class FreightWagon extends Wagon{
 
-    protected int maxWeight;
-
-
     public FreightWagon(int wagonId, int maxWeight) {
-        super(wagonId);
-        this.maxWeight = maxWeight;
+        super(wagonId, Kind.FREIGHT, 0, maxWeight);
     }
 
     public int getMaxWeight() {
@@ -1,11 +1,8 @@
 package models;
 public class PassengerWagon extends Wagon{
 
-    protected int numberOfSeats;
-
     public PassengerWagon(int wagonId, int numberOfSeats) {
-        super(wagonId);
-        this.numberOfSeats = numberOfSeats;
+        super(wagonId, Kind.PASSENGER, numberOfSeats, 0);
     }
 
     public int getNumberOfSeats() {
@@ -1,5 +1,10 @@
 package models;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+
 /**
  The Train class represents a train of wagons that are linked together using
  doubly linked lists. This class provides methods for manipulating the train,
@@ -14,15 +19,43 @@ public class Train {
     private final Locomotive engine;
     private Wagon firstWagon;
 
+    // cached aggregates of the sequence of wagons, maintained incrementally by all mutations of this train
+    // and recalculated from firstWagon after the sequence has been changed by other means
+    private Wagon lastWagon;
+    private int numberOfWagons;
+    private int totalNumberOfSeats;
+    private int totalMaxWeight;
+    private final Map<Integer, Wagon> wagonsById = new HashMap<>();  // index of all wagons in the sequence
+    private final WagonRope positions;  // index of the positions of all wagons in the sequence, if requested
+    private boolean cacheValid = true;
+    private Fleet fleet;                // the fleet that indexes this train, if any
+
     /* Representation invariants:
         firstWagon == null || firstWagon.previousWagon == null
         engine != null
+        cacheValid implies lastWagon == the last wagon of the sequence from firstWagon (or null)
+                       and numberOfWagons, totalNumberOfSeats and totalMaxWeight match that sequence
+                       and wagonsById maps the id of every wagon in that sequence onto that wagon
+                       and positions == null or positions holds exactly that sequence in the same order
+                       and every wagon in that sequence has wagon.train == this
      */
 
     public Train(Locomotive engine, String origin, String destination) {
+        this(engine, origin, destination, false);
+    }
+
+    /**
+     * Creates a train which optionally maintains an index of the positions of its wagons.
+     * With such index, findWagonAtPosition, insertAtPosition and splitAtPosition locate
+     * the position in O(log n) time instead of walking along the wagons from the front.
+     *
+     * @param indexedPositions whether the positions of the wagons shall be indexed
+     */
+    public Train(Locomotive engine, String origin, String destination, boolean indexedPositions) {
         this.engine = engine;
         this.destination = destination;
         this.origin = origin;
+        this.positions = indexedPositions ? new WagonRope() : null;
     }
 
     public String getOrigin() {
@@ -49,7 +82,7 @@ public class Train {
      * @return
      */
     public boolean isPassengerTrain() {
-        return getFirstWagon() instanceof PassengerWagon;   // replace by proper outcome
+        return firstWagon != null && firstWagon.kind == Wagon.Kind.PASSENGER;
     }
 
     /**
@@ -59,7 +92,7 @@ public class Train {
      * @return
      */
     public boolean isFreightTrain() {
-        return getFirstWagon() instanceof FreightWagon;   // replace by proper outcome
+        return firstWagon != null && firstWagon.kind == Wagon.Kind.FREIGHT;
     }
 
     public Locomotive getEngine() {
@@ -78,18 +111,103 @@ public class Train {
      */
     public void setFirstWagon(Wagon wagon) {
         firstWagon = wagon;
+        invalidate();
     }
 
     /**
-     * @return the number of Wagons connected to the train
+     * Marks the cached aggregates of this train as outdated,
+     * such that they will be recalculated from firstWagon when they are needed next.
+     * Wagons call this when a connection in the sequence of this train is changed.
      */
-    public int getNumberOfWagons() {
-        int numberOfWagons = 0;
-        Wagon currentWagon = getFirstWagon();
-        while (currentWagon != null) {
+    void invalidate() {
+        cacheValid = false;
+        if (fleet != null) {
+            fleet.changed(this);
+        }
+    }
+
+    Fleet getFleet() {
+        return fleet;
+    }
+
+    void setFleet(Fleet fleet) {
+        this.fleet = fleet;
+    }
+
+    /**
+     * Recalculates the cached aggregates in a single walk along all wagons of the train,
+     * if the sequence has been changed by other means than the mutation methods of this train
+     */
+    private void validate() {
+        if (cacheValid) {
+            return;
+        }
+        numberOfWagons = 0;
+        totalNumberOfSeats = 0;
+        totalMaxWeight = 0;
+        wagonsById.clear();
+        if (positions != null) {
+            positions.clear();
+            positions.insert(1, firstWagon);
+        }
+        lastWagon = adopt(firstWagon);
+        cacheValid = true;
+    }
+
+    /**
+     * Adds the given sequence of wagons to the cached aggregates of this train
+     * and registers this train with each of its wagons
+     *
+     * @param head the first wagon of the sequence (can be null)
+     * @return the last wagon of the sequence (or null if the sequence is empty)
+     */
+    private Wagon adopt(Wagon head) {
+        Wagon last = null;
+        for (Wagon wagon = head; wagon != null; wagon = wagon.getNextWagon()) {
+            // the train that has been holding the wagon so far needs to recalculate its aggregates
+            if (wagon.getTrain() != null && wagon.getTrain() != this) {
+                wagon.getTrain().invalidate();
+            }
+            wagon.setTrain(this);
+            wagonsById.put(wagon.getId(), wagon);
+            if (fleet != null) {
+                fleet.attached(wagon, this);
+            }
             numberOfWagons++;
-            currentWagon = currentWagon.getNextWagon();
+            totalNumberOfSeats += wagon.numberOfSeats;
+            totalMaxWeight += wagon.maxWeight;
+            last = wagon;
+        }
+        if (fleet != null) {
+            fleet.changed(this);
+        }
+        return last;
+    }
+
+    /**
+     * Removes the given sequence of wagons, which has just been detached from this train,
+     * from the cached aggregates of this train
+     *
+     * @param head the first wagon of the detached sequence
+     */
+    private void release(Wagon head) {
+        for (Wagon wagon = head; wagon != null; wagon = wagon.getNextWagon()) {
+            wagon.setTrain(null);
+            wagonsById.remove(wagon.getId(), wagon);
+            numberOfWagons--;
+            totalNumberOfSeats -= wagon.numberOfSeats;
+            totalMaxWeight -= wagon.maxWeight;
         }
+        if (fleet != null) {
+            fleet.changed(this);
+        }
+    }
+
+    /**
+     * @return the number of Wagons connected to the train
+     */
+    public int getNumberOfWagons() {
+        validate();
         return numberOfWagons;
     }
 
@@ -98,12 +216,7 @@ public class Train {
      * @return the last wagon attached to the train
      */
     public Wagon getLastWagonAttached() {
-        Wagon currentWagon = getFirstWagon();
-        Wagon lastWagon = null;
-        while (currentWagon != null) {
-            lastWagon = currentWagon;
-            currentWagon = currentWagon.getNextWagon();
-        }
+        validate();
         return lastWagon;
     }
 
@@ -112,14 +225,7 @@ public class Train {
      * (return 0 for a freight train)
      */
     public int getTotalNumberOfSeats() {
-        int totalNumberOfSeats = 0;
-        Wagon currentWagon = getFirstWagon();
-        while (currentWagon != null) {
-            if (currentWagon instanceof PassengerWagon) {
-                totalNumberOfSeats += ((PassengerWagon) currentWagon).getNumberOfSeats();
-            }
-            currentWagon = currentWagon.getNextWagon();
-        }
+        validate();
         return totalNumberOfSeats;
     }
 
@@ -130,14 +236,7 @@ public class Train {
      * (return 0 for a passenger train)
      */
     public int getTotalMaxWeight() {
-        Wagon currentWagon = getFirstWagon();
-        int totalMaxWeight = 0;
-        while (currentWagon != null) {
-            if (currentWagon instanceof FreightWagon) {
-                totalMaxWeight += ((FreightWagon) currentWagon).getMaxWeight();
-            }
-            currentWagon = currentWagon.getNextWagon();
-        }
+        validate();
         return totalMaxWeight;
     }
 
@@ -152,6 +251,10 @@ public class Train {
         if (position <= 0) {
             return null;
         }
+        if (positions != null) {
+            validate();
+            return positions.get(position);
+        }
         Wagon currentWagon = getFirstWagon();
         int currentPosition = 1;
 
@@ -178,11 +281,8 @@ public class Train {
      * (return null if no wagon was found with the given wagonId)
      */
     public Wagon findWagonById(int wagonId) {
-        Wagon currentWagon = getFirstWagon();
-        while (currentWagon != null && currentWagon.getId() != wagonId) {
-            currentWagon = currentWagon.getNextWagon();
-        }
-        return currentWagon;
+        validate();
+        return wagonsById.get(wagonId);
     }
 
     /**
@@ -197,29 +297,25 @@ public class Train {
      */
     public boolean canAttach(Wagon wagon) {
         // Check whether wagon type matches train type
-        if (isPassengerTrain() && !(wagon instanceof PassengerWagon)) {
+        if (firstWagon != null && firstWagon.kind != wagon.kind) {
             return false;
         }
-        if (isFreightTrain() && !(wagon instanceof FreightWagon)) {
-            return false;
+
+        // Count the wagons in the sequence and find its last wagon
+        int additionalWagons = 1;  // start with the wagon being checked
+        Wagon currentWagon = wagon;
+        while (currentWagon.hasNextWagon()) {
+            additionalWagons++;
+            currentWagon = currentWagon.getNextWagon();
         }
 
         // Check if wagon is already part of the train
-        Wagon currentWagon = getFirstWagon();
-        while (currentWagon != null) {
-            if (currentWagon == wagon) {
-                return false;
-            }
-            currentWagon = currentWagon.getNextWagon();
+        // (a sequence that ends with the last wagon of the train is part of the train)
+        if (currentWagon == this.getLastWagonAttached()) {
+            return false;
         }
 
         // Check if engine can pull additional wagons
-        int additionalWagons = 1;  // start with the wagon being checked
-        currentWagon = wagon.getNextWagon();  // set currentWagon to the next wagon in the train
-        while (currentWagon != null) {
-            additionalWagons++;
-            currentWagon = currentWagon.getNextWagon();
-        }
         return additionalWagons <= this.getEngine().getMaxWagons() - this.getNumberOfWagons();
     }
 
@@ -245,16 +341,21 @@ public class Train {
         }
 
         // Attach the given sequence of wagons to the rear of the train
-        if (getLastWagonAttached() == null) {
+        Wagon currentWagon = lastWagon;
+        if (positions != null) {
+            positions.insert(numberOfWagons + 1, wagon);
+        }
+        lastWagon = adopt(wagon);
+        if (currentWagon == null) {
             // If the train has no wagons, set the given wagon as the first wagon
-            setFirstWagon(wagon);
+            firstWagon = wagon;
         } else {
             // Otherwise, append the given wagon to the end of the train
-            Wagon currentWagon = getLastWagonAttached();
             currentWagon.setNextWagon(wagon);
             wagon.setPreviousWagon(currentWagon);
         }
 
+        cacheValid = true;
         return true;
     }
 
@@ -275,13 +376,18 @@ public class Train {
         }
         wagon.detachFront();
 
-        if (getNumberOfWagons() == 0) {
-            setFirstWagon(wagon);
+        if (positions != null) {
+            positions.insert(1, wagon);
+        }
+        Wagon tail = adopt(wagon);
+        if (firstWagon == null) {
+            lastWagon = tail;
         } else {
-            getFirstWagon().reAttachTo(wagon.getLastWagonAttached());
-            setFirstWagon(wagon);
+            firstWagon.reAttachTo(tail);
         }
+        firstWagon = wagon;
 
+        cacheValid = true;
         return true;
     }
 
@@ -305,42 +411,35 @@ public class Train {
         if (wagon == null) {
             return false;
         }
-        if (position > getNumberOfWagons() + 1) {
+        if (position < 1 || position > getNumberOfWagons() + 1) {
             return false;
         }
         Wagon wagonAtPosition = findWagonAtPosition(position);
         if (canAttach(wagon)) {
             // detach the wagon
             wagon.detachFront();
-            // train without wagons
-            if (firstWagon == null) {
-                firstWagon = wagon;
-                return true;
+            if (positions != null) {
+                positions.insert(position, wagon);
             }
-            if (position == getNumberOfWagons() + 1) {
-                getLastWagonAttached().attachTail(wagon);
-                return true;
-            }
-            // insert in the middle of the train
-            if (wagonAtPosition.hasNextWagon()) {
-                Wagon previous = wagonAtPosition.getPreviousWagon();
-                wagonAtPosition.detachFront();
-                previous.attachTail(wagon);
-                wagon.getLastWagonAttached().attachTail(wagonAtPosition);
-            } else {
-                // insert at position one
-                if (position == 1) {
-                    Wagon oldFirst = firstWagon;
+            Wagon tail = adopt(wagon);
+            if (wagonAtPosition == null) {
+                // train without wagons or insert immediately after the last wagon
+                if (firstWagon == null) {
                     firstWagon = wagon;
-                    wagon.attachTail(oldFirst);
-                    return true;
+                } else {
+                    lastWagon.attachTail(wagon);
                 }
-                // insert immediately before the last wagon
-                Wagon attachToHead = wagonAtPosition.getPreviousWagon();
-                wagonAtPosition.detachFront();
-                attachToHead.attachTail(wagon);
-                wagon.attachTail(wagonAtPosition);
+                lastWagon = tail;
+            } else if (position == 1) {
+                // insert at position one
+                Wagon oldFirst = firstWagon;
+                firstWagon = wagon;
+                tail.attachTail(oldFirst);
+            } else {
+                // insert in the middle of the train, or immediately before the last wagon
+                wagonAtPosition.getPreviousWagon().spliceTail(wagon, tail);
             }
+            cacheValid = true;
             return true;
         }
         return false;
@@ -369,12 +468,20 @@ public class Train {
         if (toTrain.isFreightTrain()) {
             return false;
         }
+        // Check that toTrain can take the wagon before it is removed from this train
+        if (toTrain == this || toTrain.hasWagons() && toTrain.getFirstWagon().kind != wagonToMove.kind
+                || toTrain.getNumberOfWagons() >= toTrain.getEngine().getMaxWagons()) {
+            return false;
+        }
         // Remove the wagon from this train's sequence
         if (!(wagonToMove.hasPreviousWagon())) {
-            setFirstWagon(wagonToMove.getNextWagon());
+            firstWagon = wagonToMove.getNextWagon();
+            if (firstWagon == null) {
+                lastWagon = null;
+            }
             wagonToMove.removeFromSequence();
         } else if (!(wagonToMove.hasNextWagon())) {
-            wagonToMove.detachFront();
+            lastWagon = wagonToMove.detachFront();
         } else {
             Wagon wagonFirst = wagonToMove.getPreviousWagon();
             Wagon wagonTail = wagonToMove.getNextWagon();
@@ -383,15 +490,18 @@ public class Train {
             wagonToMove.setNextWagon(null);
             wagonToMove.setPreviousWagon(null);
         }
+        if (positions != null) {
+            positions.remove(wagonToMove);
+        }
+        release(wagonToMove);
+        cacheValid = true;
 
-        // Attach the removed wagon to the rear of the toTrain
+        // Attach the removed wagon to the rear of the toTrain, which also takes over its index entry
         Wagon firstWagon = toTrain.getFirstWagon();
         if (firstWagon == null) {
-            toTrain.insertAtFront(wagonToMove);
-        } else {
-            toTrain.attachToRear(wagonToMove);
+            return toTrain.insertAtFront(wagonToMove);
         }
-        return true;
+        return toTrain.attachToRear(wagonToMove);
     }
 
 
@@ -409,7 +519,7 @@ public class Train {
      */
     public boolean splitAtPosition(int position, Train toTrain) {
         // Check if the specified position is valid
-        if (position > getNumberOfWagons()) {
+        if (position < 1 || position > getNumberOfWagons()) {
             return false;
         }
         // Check if the receiving train is a freight train, which cannot receive passenger wagons
@@ -422,20 +532,21 @@ public class Train {
         if (!(toTrain.canAttach(wagonAtPosition))) {
             return false;
         }
-        // Detach the wagon from the current train and attach it to the receiving train
-        if (!(wagonAtPosition.hasNextWagon())) {
-            wagonAtPosition.detachFront();
-            toTrain.attachToRear(wagonAtPosition);
-            // If the wagon is the first wagon in the train
-        } else if (wagonAtPosition.equals(getFirstWagon())) {
-            toTrain.attachToRear(wagonAtPosition);
-            this.setFirstWagon(null);
-        } else {
-            // If the wagon is not the first or the last wagon in the train
-            wagonAtPosition.detachFront();
-            toTrain.attachToRear(wagonAtPosition);
+        // Detach the wagon and its successors from the current train
+        // (the wagon in front of it, if any, becomes the last wagon of this train)
+        lastWagon = wagonAtPosition.detachFront();
+        if (lastWagon == null) {
+            // the wagon was the first wagon in the train
+            firstWagon = null;
         }
+        if (positions != null) {
+            positions.removeFrom(position);
+        }
+        release(wagonAtPosition);
+        cacheValid = true;
 
+        // attach the detached sequence to the receiving train
+        toTrain.attachToRear(wagonAtPosition);
         return true;
     }
 
@@ -451,38 +562,68 @@ public class Train {
             return;
         }
 
-        Wagon current = getFirstWagon();
-        Wagon lastWagon = null;
-        while (current != null) {
-            Wagon next = current.getNextWagon();
-            current.setNextWagon(current.getPreviousWagon());
-            current.setPreviousWagon(next);
-            lastWagon = current;
-            current = next;
+        // the former first wagon becomes the last wagon, all other aggregates remain the same
+        lastWagon = firstWagon;
+        firstWagon = firstWagon.reverseSequence();
+        if (positions != null) {
+            positions.clear();
+            positions.insert(1, firstWagon);
         }
-
-        getLastWagonAttached().setNextWagon(null);
-        setFirstWagon(lastWagon);
+        cacheValid = true;
     }
 
 
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
-        sb.append("Welcome to the HvA trains configurator\n");
-        sb.append("[Loc-").append(getFirstWagon().getId()).append("]");
+        try {
+            appendTo(sb, Integer.MAX_VALUE);
+        } catch (IOException e) {
+            // a StringBuilder does not throw
+            throw new UncheckedIOException(e);
+        }
+        return sb.toString();
+    }
 
-        Wagon currentWagon = getFirstWagon();
-        while (currentWagon != null) {
-            sb.append("[").append(currentWagon.getId()).append("]");
-            currentWagon = currentWagon.getNextWagon();
+    /**
+     * Writes the text of toString to the given output in a single pass, without building the text in memory.
+     * For a train of more than 2 * displayCut + 1 wagons, only the first and the last displayCut wagons are written,
+     * with "..." in between (like GPath.toString in the maze module),
+     * and the wagons in the middle are not visited at all.
+     *
+     * @param out        the destination of the text, e.g. a Writer or a StringBuilder
+     * @param displayCut the number of wagons to write at each end of a long train, at least 0
+     */
+    public void appendTo(Appendable out, int displayCut) throws IOException {
+        int numberOfWagons = getNumberOfWagons();
+        out.append("Welcome to the HvA trains configurator\n");
+        out.append("[Loc-").append(String.valueOf(firstWagon != null ? firstWagon.getId() : engine.getLocNumber())).append("]");
+
+        if (numberOfWagons <= 2L * displayCut + 1) {
+            for (Wagon wagon = firstWagon; wagon != null; wagon = wagon.getNextWagon()) {
+                out.append("[").append(String.valueOf(wagon.getId())).append("]");
+            }
+        } else {
+            Wagon wagon = firstWagon;
+            for (int i = 0; i < displayCut; i++, wagon = wagon.getNextWagon()) {
+                out.append("[").append(String.valueOf(wagon.getId())).append("]");
+            }
+            out.append("...");
+            if (displayCut > 0) {
+                // find the start of the tail part from the rear of the train
+                wagon = lastWagon;
+                for (int i = 1; i < displayCut; i++) {
+                    wagon = wagon.getPreviousWagon();
+                }
+                for (; wagon != null; wagon = wagon.getNextWagon()) {
+                    out.append("[").append(String.valueOf(wagon.getId())).append("]");
+                }
+            }
         }
 
-        sb.append(" with ").append(getNumberOfWagons()).append(" wagons from ")
+        out.append(" with ").append(String.valueOf(numberOfWagons)).append(" wagons from ")
                 .append(getOrigin()).append(" to ").append(getDestination()).append("\n");
-
-        sb.append("Total number of seats: ").append(getTotalNumberOfSeats()).append("\n");
-        return sb.toString();
+        out.append("Total number of seats: ").append(String.valueOf(getTotalNumberOfSeats())).append("\n");
     }
 
 }
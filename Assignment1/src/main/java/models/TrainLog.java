@@ -0,0 +1,522 @@
+package models;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+import static models.TrainStore.FREIGHT;
+import static models.TrainStore.NONE;
+import static models.TrainStore.PASSENGER;
+
+/**
+ An append-only log of all changes to a fleet of trains and wagons.
+ Trains are identified by the handle returned from addTrain, wagons by their id.
+ Every successful mutation is applied to the trains and recorded in the log, failed mutations are not recorded,
+ such that replaying the log deterministically rebuilds the same fleet.
+
+ Mutations can be applied one by one, or queued in a Batch. A batch is validated as a whole in a single pass
+ over the queued operations, which tracks the number of wagons and the type of each train involved, and is then
+ either applied completely or not at all.
+
+ Entries are written to the log file through a buffer, which is flushed at the end of every batch and by flush or close.
+ Attached wagons shall only be changed through the log.
+ */
+public class TrainLog implements Closeable {
+    public static final int MAGIC = 0x544c4f47;     // "TLOG"
+    public static final int VERSION = 1;
+
+    // operation codes of the entries
+    private static final int ADD_TRAIN = 1;
+    private static final int ADD_PASSENGER_WAGON = 2;
+    private static final int ADD_FREIGHT_WAGON = 3;
+    private static final int ATTACH_TO_REAR = 4;
+    private static final int INSERT_AT_FRONT = 5;
+    private static final int MOVE_ONE_WAGON = 6;
+    private static final int SPLIT_AT_POSITION = 7;
+    private static final int REVERSE = 8;
+
+    private final List<Train> trains = new ArrayList<>();
+    private final Map<Train, Integer> handles = new HashMap<>();
+    private final Map<Integer, Wagon> wagonsById = new HashMap<>();
+    private DataOutputStream out;       // null for a log that is only kept in memory, or while replaying
+    private long numberOfEntries;
+
+    /**
+     * Creates a log that is not written to a file
+     */
+    public TrainLog() {
+    }
+
+    /**
+     * Creates a new log file, replacing any existing file, for a fleet without trains and wagons
+     */
+    public static TrainLog create(Path file) throws IOException {
+        TrainLog log = new TrainLog();
+        log.out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file), 1 << 16));
+        log.out.writeInt(MAGIC);
+        log.out.writeInt(VERSION);
+        log.out.flush();
+        return log;
+    }
+
+    /**
+     * Rebuilds the fleet by replaying all entries of an existing log file.
+     * An incomplete last entry, left by a crash while writing, is removed from the file.
+     * New entries are appended to the same file.
+     *
+     * @throws IOException if the file cannot be read or is not a valid log
+     */
+    public static TrainLog replay(Path file) throws IOException {
+        TrainLog log = new TrainLog();
+        long validLength;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.remaining() < 8 || buffer.getInt() != MAGIC || buffer.getInt() != VERSION) {
+                throw new IOException("Not a train log: " + file);
+            }
+            validLength = buffer.position();
+            try {
+                while (buffer.hasRemaining()) {
+                    if (!log.replayEntry(buffer)) {
+                        throw new IOException(String.format("Entry %d of %s cannot be replayed", log.numberOfEntries, file));
+                    }
+                    validLength = buffer.position();
+                }
+            } catch (BufferUnderflowException e) {
+                // the last entry was not written completely
+                channel.truncate(validLength);
+            }
+        }
+        log.out = new DataOutputStream(new BufferedOutputStream(
+                Files.newOutputStream(file, StandardOpenOption.APPEND), 1 << 16));
+        return log;
+    }
+
+    public int getNumberOfTrains() {
+        return trains.size();
+    }
+
+    public Train getTrain(int train) {
+        return trains.get(train);
+    }
+
+    /**
+     * @return the wagon with the given id, in any train or in no train at all (or null if it has not been added)
+     */
+    public Wagon findWagonById(int wagonId) {
+        return wagonsById.get(wagonId);
+    }
+
+    /**
+     * @return the number of entries in the log, including the replayed entries
+     */
+    public long getNumberOfEntries() {
+        return numberOfEntries;
+    }
+
+    /**
+     * Adds a new train without wagons
+     *
+     * @return the handle of the new train
+     */
+    public int addTrain(Locomotive engine, String origin, String destination) {
+        Train train = new Train(engine, origin, destination);
+        handles.put(train, trains.size());
+        trains.add(train);
+        if (out != null) {
+            try {
+                out.writeByte(ADD_TRAIN);
+                out.writeInt(engine.getLocNumber());
+                out.writeInt(engine.getMaxWagons());
+                writeString(origin);
+                writeString(destination);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        numberOfEntries++;
+        return trains.size() - 1;
+    }
+
+    /**
+     * Adds a new passenger wagon which is not attached to any train
+     *
+     * @throws IllegalArgumentException if a wagon with the same id has been added already
+     */
+    public Wagon addPassengerWagon(int wagonId, int numberOfSeats) {
+        return addWagon(new PassengerWagon(wagonId, numberOfSeats), ADD_PASSENGER_WAGON, numberOfSeats);
+    }
+
+    /**
+     * Adds a new freight wagon which is not attached to any train
+     *
+     * @throws IllegalArgumentException if a wagon with the same id has been added already
+     */
+    public Wagon addFreightWagon(int wagonId, int maxWeight) {
+        return addWagon(new FreightWagon(wagonId, maxWeight), ADD_FREIGHT_WAGON, maxWeight);
+    }
+
+    private Wagon addWagon(Wagon wagon, int operation, int capacity) {
+        if (wagonsById.containsKey(wagon.getId())) {
+            throw new IllegalArgumentException(String.format("Wagon %d has already been added", wagon.getId()));
+        }
+        wagonsById.put(wagon.getId(), wagon);
+        record(operation, wagon.getId(), capacity, 0);
+        return wagon;
+    }
+
+    /**
+     * Attaches a wagon that is not attached to any train at the rear of the train, see Train.attachToRear
+     */
+    public boolean attachToRear(int train, int wagonId) {
+        return apply(ATTACH_TO_REAR, train, wagonId, 0) && record(ATTACH_TO_REAR, train, wagonId, 0);
+    }
+
+    /**
+     * Inserts a wagon that is not attached to any train at the front of the train, see Train.insertAtFront
+     */
+    public boolean insertAtFront(int train, int wagonId) {
+        return apply(INSERT_AT_FRONT, train, wagonId, 0) && record(INSERT_AT_FRONT, train, wagonId, 0);
+    }
+
+    /**
+     * See Train.moveOneWagon
+     */
+    public boolean moveOneWagon(int train, int wagonId, int toTrain) {
+        return apply(MOVE_ONE_WAGON, train, wagonId, toTrain) && record(MOVE_ONE_WAGON, train, wagonId, toTrain);
+    }
+
+    /**
+     * See Train.splitAtPosition
+     */
+    public boolean splitAtPosition(int train, int position, int toTrain) {
+        return apply(SPLIT_AT_POSITION, train, position, toTrain) && record(SPLIT_AT_POSITION, train, position, toTrain);
+    }
+
+    /**
+     * See Train.reverse
+     *
+     * @return whether the train exists
+     */
+    public boolean reverse(int train) {
+        return apply(REVERSE, train, 0, 0) && record(REVERSE, train, 0, 0);
+    }
+
+    /**
+     * @return a new empty batch of mutations for this log
+     */
+    public Batch batch() {
+        return new Batch();
+    }
+
+    /**
+     * Writes all buffered entries to the log file
+     */
+    public void flush() {
+        if (out != null) {
+            try {
+                out.flush();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (out != null) {
+            out.close();
+            out = null;
+        }
+    }
+
+    /**
+     * A queue of mutations that are validated together and then applied in the order in which they were queued.
+     * Wagons are identified by id when the batch is applied, so a wagon can be queued before it has been added.
+     */
+    public class Batch {
+        private final List<int[]> operations = new ArrayList<>();
+
+        private Batch() {
+        }
+
+        public Batch attachToRear(int train, int wagonId) {
+            operations.add(new int[]{ATTACH_TO_REAR, train, wagonId, 0});
+            return this;
+        }
+
+        public Batch insertAtFront(int train, int wagonId) {
+            operations.add(new int[]{INSERT_AT_FRONT, train, wagonId, 0});
+            return this;
+        }
+
+        public Batch moveOneWagon(int train, int wagonId, int toTrain) {
+            operations.add(new int[]{MOVE_ONE_WAGON, train, wagonId, toTrain});
+            return this;
+        }
+
+        public Batch splitAtPosition(int train, int position, int toTrain) {
+            operations.add(new int[]{SPLIT_AT_POSITION, train, position, toTrain});
+            return this;
+        }
+
+        public Batch reverse(int train) {
+            operations.add(new int[]{REVERSE, train, 0, 0});
+            return this;
+        }
+
+        public int size() {
+            return operations.size();
+        }
+
+        /**
+         * Applies all queued mutations if each of them can be made in turn, and none of them otherwise.
+         * All operations are validated first, against the handles of the trains, the owners of the wagons
+         * and the capacities and types of the trains, before the first one is applied and recorded.
+         * A wagon cannot be moved by id from a train that has been split earlier in the same batch,
+         * since validation does not track which wagons were split off.
+         * The batch is empty afterwards.
+         *
+         * Should a validated operation still fail, an IllegalStateException is thrown. The operations before it
+         * then remain applied and recorded, such that the trains still match the log and the log can be replayed.
+         *
+         * @return whether the mutations have been applied
+         */
+        public boolean apply() {
+            boolean valid = validate();
+            if (valid) {
+                for (int[] operation : operations) {
+                    if (!TrainLog.this.apply(operation[0], operation[1], operation[2], operation[3])) {
+                        throw new IllegalStateException("Validated operation could not be applied: " + Arrays.toString(operation));
+                    }
+                    record(operation[0], operation[1], operation[2], operation[3]);
+                }
+                flush();
+            }
+            operations.clear();
+            return valid;
+        }
+
+        /**
+         * simulates the queued mutations on the number of wagons and the type of each train involved,
+         * and on the train of each wagon involved, with the acceptance rules of Train
+         */
+        private boolean validate() {
+            Map<Integer, int[]> counts = new HashMap<>();      // train -> {number of wagons, type, split}
+            Map<Integer, Integer> owners = new HashMap<>();    // wagon id -> train or NONE
+
+            for (int[] operation : operations) {
+                int train = operation[1];
+                if (train < 0 || train >= trains.size()) {
+                    return false;
+                }
+                int[] state = stateOf(counts, train);
+                switch (operation[0]) {
+                    case ATTACH_TO_REAR:
+                    case INSERT_AT_FRONT: {
+                        Wagon wagon = wagonsById.get(operation[2]);
+                        if (wagon == null || ownerOf(owners, counts, wagon) != NONE || !canAttach(train, state, typeOf(wagon))) {
+                            return false;
+                        }
+                        owners.put(wagon.getId(), train);
+                        state[0]++;
+                        state[1] = typeOf(wagon);
+                        break;
+                    }
+                    case MOVE_ONE_WAGON: {
+                        Wagon wagon = wagonsById.get(operation[2]);
+                        int toTrain = operation[3];
+                        if (wagon == null || toTrain < 0 || toTrain >= trains.size()) {
+                            return false;
+                        }
+                        int owner = ownerOf(owners, counts, wagon);
+                        int[] toState = stateOf(counts, toTrain);
+                        if (owner != train || toTrain == train || toState[1] == FREIGHT
+                                || !canAttach(toTrain, toState, typeOf(wagon))) {
+                            return false;
+                        }
+                        if (--state[0] == 0) {
+                            state[1] = NONE;
+                        }
+                        owners.put(wagon.getId(), toTrain);
+                        toState[0]++;
+                        toState[1] = typeOf(wagon);
+                        break;
+                    }
+                    case SPLIT_AT_POSITION: {
+                        int position = operation[2];
+                        int toTrain = operation[3];
+                        if (toTrain < 0 || toTrain >= trains.size() || toTrain == train) {
+                            return false;
+                        }
+                        int[] toState = stateOf(counts, toTrain);
+                        int numberOfWagons = state[0] - position + 1;
+                        if (position < 1 || position > state[0] || toState[1] == FREIGHT
+                                || toState[1] != NONE && toState[1] != state[1]
+                                || numberOfWagons > trains.get(toTrain).getEngine().getMaxWagons() - toState[0]) {
+                            return false;
+                        }
+                        toState[0] += numberOfWagons;
+                        toState[1] = state[1];
+                        state[0] -= numberOfWagons;
+                        if (state[0] == 0) {
+                            state[1] = NONE;
+                        }
+                        // the wagons of the train may have been split off or not
+                        state[2] = 1;
+                        owners.replaceAll((wagonId, owner) -> owner == train ? Integer.MIN_VALUE : owner);
+                        break;
+                    }
+                    case REVERSE:
+                        break;
+                    default:
+                        return false;
+                }
+            }
+            return true;
+        }
+
+        private int[] stateOf(Map<Integer, int[]> counts, int train) {
+            return counts.computeIfAbsent(train, t -> {
+                Train current = trains.get(t);
+                int type = current.isPassengerTrain() ? PASSENGER : current.isFreightTrain() ? FREIGHT : NONE;
+                return new int[]{current.getNumberOfWagons(), type, 0};
+            });
+        }
+
+        /**
+         * @return the train of the wagon, or NONE if the wagon is not attached,
+         * or a train number that matches no train if it is unknown whether the wagon has been split off
+         */
+        private int ownerOf(Map<Integer, Integer> owners, Map<Integer, int[]> counts, Wagon wagon) {
+            Integer owner = owners.get(wagon.getId());
+            if (owner != null) {
+                return owner;
+            }
+            if (wagon.getTrain() == null) {
+                return wagon.hasPreviousWagon() || wagon.hasNextWagon() ? Integer.MIN_VALUE : NONE;
+            }
+            int train = handles.get(wagon.getTrain());
+            int[] state = counts.get(train);
+            return state != null && state[2] != 0 ? Integer.MIN_VALUE : train;
+        }
+
+        private boolean canAttach(int train, int[] state, int type) {
+            return (state[1] == NONE || state[1] == type)
+                    && state[0] + 1 <= trains.get(train).getEngine().getMaxWagons();
+        }
+    }
+
+    /**
+     * applies a mutation to the trains
+     *
+     * @return whether the mutation could be made
+     */
+    private boolean apply(int operation, int train, int argument, int toTrain) {
+        if (train < 0 || train >= trains.size()
+                || (operation == MOVE_ONE_WAGON || operation == SPLIT_AT_POSITION) && (toTrain < 0 || toTrain >= trains.size())) {
+            return false;
+        }
+        switch (operation) {
+            case ATTACH_TO_REAR:
+            case INSERT_AT_FRONT: {
+                Wagon wagon = wagonsById.get(argument);
+                if (wagon == null || wagon.getTrain() != null || wagon.hasPreviousWagon() || wagon.hasNextWagon()) {
+                    return false;
+                }
+                return operation == ATTACH_TO_REAR
+                        ? trains.get(train).attachToRear(wagon)
+                        : trains.get(train).insertAtFront(wagon);
+            }
+            case MOVE_ONE_WAGON:
+                return trains.get(train).moveOneWagon(argument, trains.get(toTrain));
+            case SPLIT_AT_POSITION:
+                return trains.get(train).splitAtPosition(argument, trains.get(toTrain));
+            case REVERSE:
+                trains.get(train).reverse();
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static int typeOf(Wagon wagon) {
+        return wagon.kind == Wagon.Kind.PASSENGER ? PASSENGER : FREIGHT;
+    }
+
+    /**
+     * appends an entry for a successful mutation to the log
+     *
+     * @return true
+     */
+    private boolean record(int operation, int first, int second, int third) {
+        if (out != null) {
+            try {
+                out.writeByte(operation);
+                out.writeInt(first);
+                out.writeInt(second);
+                out.writeInt(third);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        numberOfEntries++;
+        return true;
+    }
+
+    /**
+     * reads and applies the next entry of the log, without recording it again
+     *
+     * @return whether the entry could be applied
+     */
+    private boolean replayEntry(ByteBuffer buffer) {
+        int operation = buffer.get();
+        if (operation == ADD_TRAIN) {
+            Locomotive engine = new Locomotive(buffer.getInt(), buffer.getInt());
+            addTrain(engine, readString(buffer), readString(buffer));
+            return true;
+        }
+        int first = buffer.getInt();
+        int second = buffer.getInt();
+        int third = buffer.getInt();
+        switch (operation) {
+            case ADD_PASSENGER_WAGON:
+            case ADD_FREIGHT_WAGON:
+                if (wagonsById.containsKey(first)) {
+                    return false;
+                }
+                addWagon(operation == ADD_PASSENGER_WAGON ? new PassengerWagon(first, second) : new FreightWagon(first, second),
+                        operation, second);
+                return true;
+            default:
+                numberOfEntries++;
+                return apply(operation, first, second, third);
+        }
+    }
+
+    private void writeString(String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0 || length > buffer.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
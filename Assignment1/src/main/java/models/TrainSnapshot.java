@@ -0,0 +1,304 @@
+package models;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ An immutable version of the composition of a train.
+ Every mutation produces a new version, while all earlier versions remain valid and unchanged,
+ such that the history of a train can be kept for auditing and what-if planning.
+
+ The wagons are held in a persistent treap, ordered by position, of which the nodes are never modified.
+ A new version copies only the O(log n) nodes along the paths that it changes and shares all other nodes
+ with the version it was derived from. Reversal is recorded lazily in a flag on the root of a subtree.
+ The snapshot only refers to the wagons for their id and capacity, the next/previous links of the wagons
+ are neither used nor changed.
+ */
+public final class TrainSnapshot {
+
+    private static final class Node {
+        final Wagon wagon;
+        final int priority;
+        final Node left, right;
+        final boolean reversed;     // the subtree represents the reverse of left, wagon, right
+        final int size;
+        final int seats;
+        final int maxWeight;
+
+        Node(Wagon wagon, int priority, Node left, Node right, boolean reversed) {
+            this.wagon = wagon;
+            this.priority = priority;
+            this.left = left;
+            this.right = right;
+            this.reversed = reversed;
+            this.size = 1 + size(left) + size(right);
+            this.seats = wagon.numberOfSeats + (left == null ? 0 : left.seats) + (right == null ? 0 : right.seats);
+            this.maxWeight = wagon.maxWeight + (left == null ? 0 : left.maxWeight) + (right == null ? 0 : right.maxWeight);
+        }
+    }
+
+    /** The new versions of both trains involved in a split */
+    public static final class Split {
+        private final TrainSnapshot train;
+        private final TrainSnapshot toTrain;
+
+        private Split(TrainSnapshot train, TrainSnapshot toTrain) {
+            this.train = train;
+            this.toTrain = toTrain;
+        }
+
+        public TrainSnapshot getTrain() {
+            return train;
+        }
+
+        public TrainSnapshot getToTrain() {
+            return toTrain;
+        }
+    }
+
+    private final Locomotive engine;
+    private final String origin;
+    private final String destination;
+    private final Node root;
+
+    private TrainSnapshot(Locomotive engine, String origin, String destination, Node root) {
+        this.engine = engine;
+        this.origin = origin;
+        this.destination = destination;
+        this.root = root;
+    }
+
+    /**
+     * @return a version of a train without wagons
+     */
+    public static TrainSnapshot empty(Locomotive engine, String origin, String destination) {
+        return new TrainSnapshot(engine, origin, destination, null);
+    }
+
+    /**
+     * Captures the current composition of the given train in O(n log n) time
+     *
+     * @return the first version of the train
+     */
+    public static TrainSnapshot of(Train train) {
+        return new TrainSnapshot(train.getEngine(), train.getOrigin(), train.getDestination(),
+                sequence(train.getFirstWagon()));
+    }
+
+    public Locomotive getEngine() {
+        return engine;
+    }
+
+    public String getOrigin() {
+        return origin;
+    }
+
+    public String getDestination() {
+        return destination;
+    }
+
+    public boolean hasWagons() {
+        return root != null;
+    }
+
+    public boolean isPassengerTrain() {
+        return hasWagons() && findWagonAtPosition(1).kind == Wagon.Kind.PASSENGER;
+    }
+
+    public boolean isFreightTrain() {
+        return hasWagons() && findWagonAtPosition(1).kind == Wagon.Kind.FREIGHT;
+    }
+
+    public int getNumberOfWagons() {
+        return size(root);
+    }
+
+    public int getTotalNumberOfSeats() {
+        return root == null ? 0 : root.seats;
+    }
+
+    public int getTotalMaxWeight() {
+        return root == null ? 0 : root.maxWeight;
+    }
+
+    /**
+     * Finds the wagon at the given position (starting at 1 for the first wagon of the train) in O(log n) time
+     *
+     * @return the wagon found at the given position (or null if the position is not valid for this version)
+     */
+    public Wagon findWagonAtPosition(int position) {
+        if (position < 1 || position > getNumberOfWagons()) {
+            return null;
+        }
+        Node node = root;
+        boolean flipped = false;
+        while (true) {
+            flipped ^= node.reversed;
+            Node first = flipped ? node.right : node.left;
+            Node second = flipped ? node.left : node.right;
+            if (position <= size(first)) {
+                node = first;
+            } else if (position == size(first) + 1) {
+                return node.wagon;
+            } else {
+                position -= size(first) + 1;
+                node = second;
+            }
+        }
+    }
+
+    /**
+     * @return the wagons of this version in the order of their positions
+     */
+    public List<Wagon> getWagons() {
+        List<Wagon> wagons = new ArrayList<>(getNumberOfWagons());
+        collect(root, false, wagons);
+        return wagons;
+    }
+
+    /**
+     * Determines if the given sequence of wagons can be attached to this version of the train,
+     * verifying the type of the wagons and the capacity of the engine as in Train.canAttach
+     *
+     * @param wagon the head wagon of a sequence of wagons
+     */
+    public boolean canAttach(Wagon wagon) {
+        if (wagon == null || hasWagons() && findWagonAtPosition(1).kind != wagon.kind) {
+            return false;
+        }
+        return wagon.getSequenceLength() <= engine.getMaxWagons() - getNumberOfWagons();
+    }
+
+    /**
+     * Attaches the given sequence of wagons at the rear in O(k + log n) time, for a sequence of k wagons
+     *
+     * @param wagon the head wagon of a sequence of wagons to be attached
+     * @return the new version of the train, or this version if the attachment cannot be made
+     */
+    public TrainSnapshot attachToRear(Wagon wagon) {
+        if (!canAttach(wagon)) {
+            return this;
+        }
+        return withRoot(merge(root, sequence(wagon)));
+    }
+
+    /**
+     * Splits this version before the wagon at the given position and attaches the wagons from that position
+     * at the rear of toTrain, in O(log n) time
+     *
+     * @param position 1 <= position <= numWagons
+     * @param toTrain  the version of the train that receives the split sequence
+     * @return the new versions of both trains, or the given versions if the split cannot be made
+     */
+    public Split splitAtPosition(int position, TrainSnapshot toTrain) {
+        Wagon wagonAtPosition = findWagonAtPosition(position);
+        if (wagonAtPosition == null
+                || toTrain.hasWagons() && toTrain.findWagonAtPosition(1).kind != wagonAtPosition.kind
+                || getNumberOfWagons() - position + 1 > toTrain.engine.getMaxWagons() - toTrain.getNumberOfWagons()) {
+            return new Split(this, toTrain);
+        }
+        Node[] parts = split(root, position - 1);
+        return new Split(withRoot(parts[0]), toTrain.withRoot(merge(toTrain.root, parts[1])));
+    }
+
+    /**
+     * Reverses the sequence of wagons in O(1) time
+     *
+     * @return the new version of the train
+     */
+    public TrainSnapshot reverse() {
+        return withRoot(reverse(root));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        for (Wagon wagon : getWagons()) {
+            sb.append("[").append(wagon.getId()).append("]");
+        }
+        sb.append(" with ").append(getNumberOfWagons()).append(" wagons from ")
+                .append(getOrigin()).append(" to ").append(getDestination());
+        return sb.toString();
+    }
+
+    private TrainSnapshot withRoot(Node root) {
+        return new TrainSnapshot(engine, origin, destination, root);
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    /**
+     * builds a new tree of the sequence of wagons from the given head wagon
+     */
+    private static Node sequence(Wagon head) {
+        Node node = null;
+        for (Wagon wagon = head; wagon != null; wagon = wagon.getNextWagon()) {
+            node = merge(node, new Node(wagon, ThreadLocalRandom.current().nextInt(), null, null, false));
+        }
+        return node;
+    }
+
+    private static void collect(Node node, boolean flipped, List<Wagon> wagons) {
+        if (node != null) {
+            flipped ^= node.reversed;
+            collect(flipped ? node.right : node.left, flipped, wagons);
+            wagons.add(node.wagon);
+            collect(flipped ? node.left : node.right, flipped, wagons);
+        }
+    }
+
+    private static Node reverse(Node node) {
+        return node == null ? null : new Node(node.wagon, node.priority, node.left, node.right, !node.reversed);
+    }
+
+    /**
+     * @return an equivalent node without a pending reversal, passing the reversal on to copies of its children
+     */
+    private static Node push(Node node) {
+        if (!node.reversed) {
+            return node;
+        }
+        return new Node(node.wagon, node.priority, reverse(node.right), reverse(node.left), false);
+    }
+
+    /**
+     * concatenates two trees into a new tree, sharing all untouched nodes
+     */
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority >= right.priority) {
+            left = push(left);
+            return new Node(left.wagon, left.priority, left.left, merge(left.right, right), false);
+        } else {
+            right = push(right);
+            return new Node(right.wagon, right.priority, merge(left, right.left), right.right, false);
+        }
+    }
+
+    /**
+     * splits a tree into new trees of the first count positions and the remaining positions
+     */
+    private static Node[] split(Node node, int count) {
+        if (node == null) {
+            return new Node[]{null, null};
+        }
+        node = push(node);
+        if (size(node.left) < count) {
+            Node[] parts = split(node.right, count - size(node.left) - 1);
+            parts[0] = new Node(node.wagon, node.priority, node.left, parts[0], false);
+            return parts;
+        } else {
+            Node[] parts = split(node.left, count);
+            parts[1] = new Node(node.wagon, node.priority, parts[1], node.right, false);
+            return parts;
+        }
+    }
+}
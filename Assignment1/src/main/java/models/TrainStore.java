@@ -0,0 +1,537 @@
+package models;
+
+import java.util.Arrays;
+
+/**
+ A compact store of many trains and their wagons, intended for fleets of millions of wagons.
+ Instead of one Wagon object per wagon, all wagon properties and the next/previous connections
+ are kept in parallel int arrays, indexed by a wagon handle.
+ Trains are identified by a train handle, which indexes a second set of parallel arrays.
+
+ The store offers the same operations as Train, with wagons and trains passed as handles.
+ NONE takes the role of null for wagon and train handles.
+ All connections are changed through the store, so the aggregates of each train are always up to date.
+ */
+public class TrainStore {
+    public static final int NONE = -1;
+    public static final int PASSENGER = 0;
+    public static final int FREIGHT = 1;
+
+    private static final int INITIAL_CAPACITY = 16;
+
+    // wagon columns, indexed by wagon handle
+    private int numberOfWagons;
+    private int[] ids;
+    private int[] types;        // PASSENGER or FREIGHT
+    private int[] seats;        // the number of seats of a passenger wagon, 0 for a freight wagon
+    private int[] maxWeights;   // the maximum weight of a freight wagon, 0 for a passenger wagon
+    private int[] next;         // the handle of the successor of the wagon, or NONE
+    private int[] previous;     // the handle of the predecessor of the wagon, or NONE
+    private int[] owners;       // the handle of the train that holds the wagon, or NONE
+
+    // index of wagon handles by wagon id, with open addressing and linear probing
+    private int[] idKeys;
+    private int[] idHandles;    // NONE marks a free entry
+
+    // train columns, indexed by train handle
+    private int numberOfTrains;
+    private Locomotive[] engines;
+    private String[] origins;
+    private String[] destinations;
+    private int[] firstWagons;
+    private int[] lastWagons;
+    private int[] wagonCounts;
+    private int[] seatTotals;
+    private int[] weightTotals;
+
+    /* Representation invariants:
+        next[w] == NONE || previous[next[w]] == w               (tail-connection-invariant)
+        previous[w] == NONE || next[previous[w]] == w           (front-connection-invariant)
+        firstWagons[t] == NONE || previous[firstWagons[t]] == NONE
+        the sequence from firstWagons[t] ends at lastWagons[t], holds wagonCounts[t] wagons,
+            has owners[w] == t for each of its wagons and adds up to seatTotals[t] and weightTotals[t]
+     */
+
+    public TrainStore() {
+        this(INITIAL_CAPACITY);
+    }
+
+    /**
+     * @param wagonCapacity the expected number of wagons, the store grows beyond it when needed
+     */
+    public TrainStore(int wagonCapacity) {
+        int capacity = Math.max(wagonCapacity, INITIAL_CAPACITY);
+        ids = new int[capacity];
+        types = new int[capacity];
+        seats = new int[capacity];
+        maxWeights = new int[capacity];
+        next = new int[capacity];
+        previous = new int[capacity];
+        owners = new int[capacity];
+        idKeys = new int[Integer.highestOneBit(capacity) << 2];   // a power of two, at least twice the capacity
+        idHandles = new int[idKeys.length];
+        Arrays.fill(idHandles, NONE);
+
+        engines = new Locomotive[INITIAL_CAPACITY];
+        origins = new String[INITIAL_CAPACITY];
+        destinations = new String[INITIAL_CAPACITY];
+        firstWagons = new int[INITIAL_CAPACITY];
+        lastWagons = new int[INITIAL_CAPACITY];
+        wagonCounts = new int[INITIAL_CAPACITY];
+        seatTotals = new int[INITIAL_CAPACITY];
+        weightTotals = new int[INITIAL_CAPACITY];
+    }
+
+    /**
+     * Registers a new train without wagons
+     *
+     * @return the handle of the new train
+     */
+    public int addTrain(Locomotive engine, String origin, String destination) {
+        if (numberOfTrains == engines.length) {
+            int capacity = 2 * engines.length;
+            engines = Arrays.copyOf(engines, capacity);
+            origins = Arrays.copyOf(origins, capacity);
+            destinations = Arrays.copyOf(destinations, capacity);
+            firstWagons = Arrays.copyOf(firstWagons, capacity);
+            lastWagons = Arrays.copyOf(lastWagons, capacity);
+            wagonCounts = Arrays.copyOf(wagonCounts, capacity);
+            seatTotals = Arrays.copyOf(seatTotals, capacity);
+            weightTotals = Arrays.copyOf(weightTotals, capacity);
+        }
+        int train = numberOfTrains++;
+        engines[train] = engine;
+        origins[train] = origin;
+        destinations[train] = destination;
+        firstWagons[train] = NONE;
+        lastWagons[train] = NONE;
+        return train;
+    }
+
+    /**
+     * Registers a new passenger wagon which is not connected to any other wagon
+     *
+     * @return the handle of the new wagon
+     * @throws IllegalArgumentException if a wagon with the same id has been registered already
+     */
+    public int addPassengerWagon(int wagonId, int numberOfSeats) {
+        return addWagon(wagonId, PASSENGER, numberOfSeats, 0);
+    }
+
+    /**
+     * Registers a new freight wagon which is not connected to any other wagon
+     *
+     * @return the handle of the new wagon
+     * @throws IllegalArgumentException if a wagon with the same id has been registered already
+     */
+    public int addFreightWagon(int wagonId, int maxWeight) {
+        return addWagon(wagonId, FREIGHT, 0, maxWeight);
+    }
+
+    private int addWagon(int wagonId, int type, int numberOfSeats, int maxWeight) {
+        if (findWagonById(wagonId) != NONE) {
+            throw new IllegalArgumentException(String.format("Wagon %d has already been registered", wagonId));
+        }
+        if (numberOfWagons == ids.length) {
+            int capacity = 2 * ids.length;
+            ids = Arrays.copyOf(ids, capacity);
+            types = Arrays.copyOf(types, capacity);
+            seats = Arrays.copyOf(seats, capacity);
+            maxWeights = Arrays.copyOf(maxWeights, capacity);
+            next = Arrays.copyOf(next, capacity);
+            previous = Arrays.copyOf(previous, capacity);
+            owners = Arrays.copyOf(owners, capacity);
+        }
+        if (2 * (numberOfWagons + 1) > idKeys.length) {
+            rehash(2 * idKeys.length);
+        }
+        int wagon = numberOfWagons++;
+        ids[wagon] = wagonId;
+        types[wagon] = type;
+        seats[wagon] = numberOfSeats;
+        maxWeights[wagon] = maxWeight;
+        next[wagon] = NONE;
+        previous[wagon] = NONE;
+        owners[wagon] = NONE;
+        putId(wagonId, wagon);
+        return wagon;
+    }
+
+    private int slotOf(int wagonId) {
+        // spread the ids over the table by a multiplicative hash
+        int hash = wagonId * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & (idKeys.length - 1);
+    }
+
+    private void putId(int wagonId, int wagon) {
+        int slot = slotOf(wagonId);
+        while (idHandles[slot] != NONE) {
+            slot = (slot + 1) & (idKeys.length - 1);
+        }
+        idKeys[slot] = wagonId;
+        idHandles[slot] = wagon;
+    }
+
+    private void rehash(int capacity) {
+        idKeys = new int[capacity];
+        idHandles = new int[capacity];
+        Arrays.fill(idHandles, NONE);
+        for (int wagon = 0; wagon < numberOfWagons; wagon++) {
+            putId(ids[wagon], wagon);
+        }
+    }
+
+    /**
+     * @return the handle of the wagon with the given wagonId, in any train or in no train at all,
+     * (or NONE if no wagon has been registered with the given wagonId)
+     */
+    public int findWagonById(int wagonId) {
+        int slot = slotOf(wagonId);
+        while (idHandles[slot] != NONE) {
+            if (idKeys[slot] == wagonId) {
+                return idHandles[slot];
+            }
+            slot = (slot + 1) & (idKeys.length - 1);
+        }
+        return NONE;
+    }
+
+    public int getNumberOfTrains() {
+        return numberOfTrains;
+    }
+
+    public int getNumberOfRegisteredWagons() {
+        return numberOfWagons;
+    }
+
+    public int getWagonId(int wagon) {
+        return ids[wagon];
+    }
+
+    public int getWagonType(int wagon) {
+        return types[wagon];
+    }
+
+    public int getNumberOfSeats(int wagon) {
+        return seats[wagon];
+    }
+
+    public int getMaxWeight(int wagon) {
+        return maxWeights[wagon];
+    }
+
+    public int getNextWagon(int wagon) {
+        return next[wagon];
+    }
+
+    public int getPreviousWagon(int wagon) {
+        return previous[wagon];
+    }
+
+    /**
+     * @return the handle of the train that holds the wagon, or NONE
+     */
+    public int getTrainOf(int wagon) {
+        return owners[wagon];
+    }
+
+    /**
+     * Attaches the tail wagon and its connected successors behind the given wagon,
+     * with the same rules as Wagon.attachTail.
+     * Only wagons that are not held by a train can be connected this way, use the train operations otherwise.
+     *
+     * @throws IllegalStateException if one of the wagons is held by a train,
+     *                               if wagon already has a successor or if tail already has a predecessor.
+     */
+    public void attachTail(int wagon, int tail) throws IllegalStateException {
+        if (owners[wagon] != NONE || owners[tail] != NONE) {
+            throw new IllegalStateException(String.format("Wagon %d or %d is held by a train", ids[wagon], ids[tail]));
+        }
+        if (next[wagon] != NONE) {
+            throw new IllegalStateException(String.format("Wagon %d is already pulling %d", ids[wagon], ids[next[wagon]]));
+        }
+        if (previous[tail] != NONE) {
+            throw new IllegalStateException(String.format("Wagon %d has already been attached to %d", ids[previous[tail]], ids[tail]));
+        }
+        link(wagon, tail);
+    }
+
+    public Locomotive getEngine(int train) {
+        return engines[train];
+    }
+
+    public String getOrigin(int train) {
+        return origins[train];
+    }
+
+    public String getDestination(int train) {
+        return destinations[train];
+    }
+
+    public boolean hasWagons(int train) {
+        return firstWagons[train] != NONE;
+    }
+
+    public boolean isPassengerTrain(int train) {
+        return firstWagons[train] != NONE && types[firstWagons[train]] == PASSENGER;
+    }
+
+    public boolean isFreightTrain(int train) {
+        return firstWagons[train] != NONE && types[firstWagons[train]] == FREIGHT;
+    }
+
+    public int getFirstWagon(int train) {
+        return firstWagons[train];
+    }
+
+    public int getLastWagonAttached(int train) {
+        return lastWagons[train];
+    }
+
+    public int getNumberOfWagons(int train) {
+        return wagonCounts[train];
+    }
+
+    public int getTotalNumberOfSeats(int train) {
+        return seatTotals[train];
+    }
+
+    public int getTotalMaxWeight(int train) {
+        return weightTotals[train];
+    }
+
+    /**
+     * Finds the wagon at the given position (starting at 1 for the first wagon of the train),
+     * walking from the nearest end of the train
+     *
+     * @return the handle of the wagon found at the given position (or NONE if the position is not valid)
+     */
+    public int findWagonAtPosition(int train, int position) {
+        if (position < 1 || position > wagonCounts[train]) {
+            return NONE;
+        }
+        int wagon;
+        if (2 * position <= wagonCounts[train]) {
+            wagon = firstWagons[train];
+            for (int p = 1; p < position; p++) {
+                wagon = next[wagon];
+            }
+        } else {
+            wagon = lastWagons[train];
+            for (int p = wagonCounts[train]; p > position; p--) {
+                wagon = previous[wagon];
+            }
+        }
+        return wagon;
+    }
+
+    /**
+     * Determines if the sequence of wagons from the given head wagon can be attached to the train,
+     * with the same rules as Train.canAttach
+     */
+    public boolean canAttach(int train, int wagon) {
+        if (wagon == NONE || owners[wagon] == train) {
+            return false;
+        }
+        if (firstWagons[train] != NONE && types[firstWagons[train]] != types[wagon]) {
+            return false;
+        }
+        int additionalWagons = 0;
+        for (int w = wagon; w != NONE; w = next[w]) {
+            additionalWagons++;
+        }
+        return additionalWagons <= engines[train].getMaxWagons() - wagonCounts[train];
+    }
+
+    /**
+     * Tries to attach the sequence of wagons from the given head wagon to the rear of the train,
+     * with the same rules as Train.attachToRear
+     *
+     * @return whether the attachment could be completed successfully
+     */
+    public boolean attachToRear(int train, int wagon) {
+        if (!canAttach(train, wagon)) {
+            return false;
+        }
+        detachFront(wagon);
+        int tail = adopt(train, wagon);
+        if (firstWagons[train] == NONE) {
+            firstWagons[train] = wagon;
+        } else {
+            link(lastWagons[train], wagon);
+        }
+        lastWagons[train] = tail;
+        return true;
+    }
+
+    /**
+     * Tries to insert the sequence of wagons from the given head wagon at the front of the train,
+     * with the same rules as Train.insertAtFront
+     *
+     * @return whether the insertion could be completed successfully
+     */
+    public boolean insertAtFront(int train, int wagon) {
+        if (!canAttach(train, wagon)) {
+            return false;
+        }
+        detachFront(wagon);
+        int tail = adopt(train, wagon);
+        if (firstWagons[train] == NONE) {
+            lastWagons[train] = tail;
+        } else {
+            link(tail, firstWagons[train]);
+        }
+        firstWagons[train] = wagon;
+        return true;
+    }
+
+    /**
+     * Tries to insert the sequence of wagons from the given head wagon at/before the given position in the train,
+     * with the same rules as Train.insertAtPosition
+     *
+     * @param position 1 <= position <= numWagons + 1
+     * @return whether the insertion could be completed successfully
+     */
+    public boolean insertAtPosition(int train, int position, int wagon) {
+        if (position < 1 || position > wagonCounts[train] + 1) {
+            return false;
+        }
+        if (position == wagonCounts[train] + 1) {
+            return attachToRear(train, wagon);
+        }
+        if (position == 1) {
+            return insertAtFront(train, wagon);
+        }
+        if (!canAttach(train, wagon)) {
+            return false;
+        }
+        int wagonAtPosition = findWagonAtPosition(train, position);
+        int front = previous[wagonAtPosition];
+        detachFront(wagon);
+        int tail = adopt(train, wagon);
+        link(front, wagon);
+        link(tail, wagonAtPosition);
+        return true;
+    }
+
+    /**
+     * Tries to remove the wagon with the given wagonId from the train and attach it at the rear of toTrain.
+     * No change is made if the wagon is not held by the train,
+     * or if the wagon is not compatible with toTrain or the engine of toTrain has insufficient capacity.
+     *
+     * @return whether the move could be completed successfully
+     */
+    public boolean moveOneWagon(int train, int wagonId, int toTrain) {
+        int wagon = findWagonById(wagonId);
+        if (wagon == NONE || owners[wagon] != train || train == toTrain) {
+            return false;
+        }
+        if (firstWagons[toTrain] != NONE && types[firstWagons[toTrain]] != types[wagon]
+                || wagonCounts[toTrain] >= engines[toTrain].getMaxWagons()) {
+            return false;
+        }
+        // remove the wagon from its sequence and reconnect its neighbours
+        int front = previous[wagon], tail = next[wagon];
+        if (front == NONE) {
+            firstWagons[train] = tail;
+        } else {
+            next[front] = tail;
+        }
+        if (tail == NONE) {
+            lastWagons[train] = front;
+        } else {
+            previous[tail] = front;
+        }
+        next[wagon] = NONE;
+        previous[wagon] = NONE;
+        release(train, wagon);
+        return attachToRear(toTrain, wagon);
+    }
+
+    /**
+     * Tries to split the train before the wagon at given position and move the complete sequence
+     * of wagons from the given position to the rear of toTrain, with the same rules as Train.splitAtPosition
+     *
+     * @param position 1 <= position <= numWagons
+     * @return whether the move could be completed successfully
+     */
+    public boolean splitAtPosition(int train, int position, int toTrain) {
+        int wagonAtPosition = findWagonAtPosition(train, position);
+        if (wagonAtPosition == NONE || train == toTrain) {
+            return false;
+        }
+        // attachToRear detaches the sequence from this train
+        return attachToRear(toTrain, wagonAtPosition);
+    }
+
+    /**
+     * Reverses the sequence of wagons in the train (if any)
+     */
+    public void reverse(int train) {
+        int wagon = firstWagons[train];
+        while (wagon != NONE) {
+            int successor = next[wagon];
+            next[wagon] = previous[wagon];
+            previous[wagon] = successor;
+            wagon = successor;
+        }
+        int first = firstWagons[train];
+        firstWagons[train] = lastWagons[train];
+        lastWagons[train] = first;
+    }
+
+    private void link(int wagon, int tail) {
+        next[wagon] = tail;
+        previous[tail] = wagon;
+    }
+
+    /**
+     * Detaches the wagon from its predecessor, if any.
+     * If the wagon is held by a train, that train loses the wagon and all its successors.
+     */
+    private void detachFront(int wagon) {
+        int front = previous[wagon];
+        int train = owners[wagon];
+        if (front != NONE) {
+            next[front] = NONE;
+            previous[wagon] = NONE;
+        }
+        if (train != NONE) {
+            lastWagons[train] = front;
+            if (front == NONE) {
+                firstWagons[train] = NONE;
+            }
+            release(train, wagon);
+        }
+    }
+
+    /**
+     * Adds the sequence from the given head wagon to the aggregates of the train
+     *
+     * @return the last wagon of the sequence
+     */
+    private int adopt(int train, int head) {
+        int last = NONE;
+        for (int wagon = head; wagon != NONE; wagon = next[wagon]) {
+            owners[wagon] = train;
+            wagonCounts[train]++;
+            seatTotals[train] += seats[wagon];
+            weightTotals[train] += maxWeights[wagon];
+            last = wagon;
+        }
+        return last;
+    }
+
+    /**
+     * Removes the sequence from the given head wagon, which has been detached from the train,
+     * from the aggregates of the train
+     */
+    private void release(int train, int head) {
+        for (int wagon = head; wagon != NONE; wagon = next[wagon]) {
+            owners[wagon] = NONE;
+            wagonCounts[train]--;
+            seatTotals[train] -= seats[wagon];
+            weightTotals[train] -= maxWeights[wagon];
+        }
+    }
+}
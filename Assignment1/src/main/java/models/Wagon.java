@@ -6,25 +6,48 @@ package models;
  @author Huseyin Altunbas
  */
 public abstract class Wagon {
+    /**
+     * The kind of a wagon, which determines which capacity of the wagon counts for a train.
+     * Wagons of other subclasses than PassengerWagon and FreightWagon are of kind OTHER, without capacity.
+     */
+    public enum Kind { PASSENGER, FREIGHT, OTHER }
+
     protected int id;               // some unique ID of a Wagon
+    final Kind kind;                // the kind of this wagon, tagged at construction
+    protected final int numberOfSeats;  // the number of seats of a passenger wagon, 0 for other kinds
+    protected final int maxWeight;      // the maximum weight of a freight wagon, 0 for other kinds
+    // aggregations of a sequence just add numberOfSeats and maxWeight of every wagon, without type dispatch
     private Wagon nextWagon;        // another wagon that is appended at the tail of this wagon
     // a.k.a. the successor of this wagon in a sequence// set to null if no successor is connected
     private Wagon previousWagon;    // another wagon that is prepended at the front of this wagon
     // a.k.a. the predecessor of this wagon in a sequence
     // set to null if no predecessor is connected
+    private Train train;            // the train that caches aggregate information about the sequence of this wagon
+    // set to null if this wagon has never been part of a train
 
     // representation invariant propositions:
     // tail-connection-invariant:   wagon.nextWagon == null or wagon == wagon.nextWagon.previousWagon
     // front-connection-invariant:  wagon.previousWagon == null or wagon = wagon.previousWagon.nextWagon
 
     public Wagon(int wagonId) {
+        this(wagonId, Kind.OTHER, 0, 0);
+    }
+
+    protected Wagon(int wagonId, Kind kind, int numberOfSeats, int maxWeight) {
         this.id = wagonId;
+        this.kind = kind;
+        this.numberOfSeats = numberOfSeats;
+        this.maxWeight = maxWeight;
     }
 
     public int getId() {
         return id;
     }
 
+    public Kind getKind() {
+        return kind;
+    }
+
     public Wagon getNextWagon() {
         return nextWagon;
     }
@@ -36,12 +59,24 @@ public abstract class Wagon {
 
     public void setNextWagon(Wagon nextWagon) {
         this.nextWagon = nextWagon;
+        // the cached length, tail and capacity of the train depend on this connection
+        if (this.train != null) {
+            this.train.invalidate();
+        }
     }
 
     public void setPreviousWagon(Wagon previousWagon) {
         this.previousWagon = previousWagon;
     }
 
+    Train getTrain() {
+        return train;
+    }
+
+    void setTrain(Train train) {
+        this.train = train;
+    }
+
     /**
      * @return whether this wagon has a wagon appended at the tail
      */
@@ -91,6 +126,30 @@ public abstract class Wagon {
         return length;
     }
 
+    /**
+     * @return the total number of seats of the sequence of wagons towards the end of its tail
+     * including this wagon itself.
+     */
+    public int getSequenceNumberOfSeats() {
+        int total = 0;
+        for (Wagon current = this; current != null; current = current.nextWagon) {
+            total += current.numberOfSeats;
+        }
+        return total;
+    }
+
+    /**
+     * @return the total maximum weight of the sequence of wagons towards the end of its tail
+     * including this wagon itself.
+     */
+    public int getSequenceMaxWeight() {
+        int total = 0;
+        for (Wagon current = this; current != null; current = current.nextWagon) {
+            total += current.maxWeight;
+        }
+        return total;
+    }
+
 
     /**
      * Attaches the tail wagon and its connected successors behind this wagon,
@@ -115,13 +174,33 @@ public abstract class Wagon {
         if (tail.hasPreviousWagon()) {
             throw new IllegalStateException(String.format("%s has already been attached to %s", tail.getPreviousWagon(), tail));
         }
-        // Attach tail to the end of the train
+        // Attach tail directly behind this wagon, which has been verified to have no successor
         tail.setPreviousWagon(currentWagon);
-        while (currentWagon.hasNextWagon()) {
-            currentWagon = currentWagon.getNextWagon();
-        }
         currentWagon.setNextWagon(tail);
+    }
 
+    /**
+     * Splices the complete sequence of wagons from head until tail in between this wagon and its current tail, if any.
+     * Both ends of the sequence must be known, such that no wagons need to be visited in between.
+     *
+     * @param head the first wagon of the sequence to be inserted behind this wagon
+     * @param tail the last wagon of that same sequence (which may be head itself)
+     * @throws IllegalStateException if head is already attached to a wagon in front of it,
+     *                               or if tail is already pulling another wagon.
+     */
+    public void spliceTail(Wagon head, Wagon tail) throws IllegalStateException {
+        if (head.hasPreviousWagon()) {
+            throw new IllegalStateException(String.format("%s has already been attached to %s", head.getPreviousWagon(), head));
+        }
+        if (tail.hasNextWagon()) {
+            throw new IllegalStateException(String.format("%s is already pulling %s", tail, tail.getNextWagon()));
+        }
+        // reconnect the current tail of this wagon, if any, behind the tail of the sequence
+        Wagon oldTail = this.detachTail();
+        this.attachTail(head);
+        if (oldTail != null) {
+            tail.attachTail(oldTail);
+        }
     }
 
     /**
@@ -137,8 +216,8 @@ public abstract class Wagon {
             return null;
         }
         // detach tail from this wagon
-        this.nextWagon = null;
-        detachedWagon.previousWagon = null;
+        this.setNextWagon(null);
+        detachedWagon.setPreviousWagon(null);
         //return the first wagon of this tail
         return detachedWagon;
     }
@@ -171,13 +250,12 @@ public abstract class Wagon {
      */
     public void reAttachTo(Wagon front) {
         if (front == null) {return;}
-        Wagon tailOfFront = front.getLastWagonAttached();
         // disconnect this wagon from its predecessor
         detachFront();
         // disconnect the front wagon from its current tail
         front.detachTail();
-        // tail of the front wagon if this wagon
-        tailOfFront.attachTail(this);
+        // tail of the front wagon is this wagon
+        front.attachTail(this);
     }
 
     /**
@@ -210,21 +288,26 @@ public abstract class Wagon {
      * @return the new start Wagon of the reversed sequence (with is the former last Wagon of the original sequence)
      */
     public Wagon reverseSequence() {
+        // Detach the sequence from the wagon in front of it, if any
+        Wagon front = detachFront();
         Wagon currentWagon = this;
         Wagon previousWagon = null;
-        // While there are still wagons in the sequence
+        // Swap the connections of every wagon in a single pass along the sequence
         while (currentWagon != null) {
             // Get the next Wagon in the sequence
             Wagon nextWagon = currentWagon.getNextWagon();
-            // Detach the current Wagon from the front of the sequence
-            currentWagon.detachFront();
-            // Reattach the current Wagon to the previous Wagon (null if this is the first iteration)
-            currentWagon.reAttachTo(previousWagon);
+            // The next wagon becomes the predecessor and the former predecessor becomes the successor
+            currentWagon.setNextWagon(previousWagon);
+            currentWagon.setPreviousWagon(nextWagon);
             // Update the previous Wagon to the current Wagon
             previousWagon = currentWagon;
             // Move to the next Wagon in the sequence
             currentWagon = nextWagon;
         }
+        // Reattach the reversed sequence to the wagon in front of it, if any
+        if (front != null) {
+            front.attachTail(previousWagon);
+        }
         // Return the new start Wagon of the reversed sequence (which is the former last Wagon of the original sequence)
         return previousWagon;
     }
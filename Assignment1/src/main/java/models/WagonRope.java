@@ -0,0 +1,208 @@
+package models;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ An order-statistic index over the positions of the wagons in a train.
+ The wagons are kept in a randomized balanced binary tree (a treap) which is ordered by position,
+ and every node knows the size of its subtree, so that a position can be found in O(log n) expected time.
+ The tree only tracks positions, the wagons themselves remain connected by their next/previous links.
+ */
+class WagonRope {
+
+    private static class Node {
+        final Wagon wagon;
+        final int priority;     // heap order of the treap: a parent has a higher priority than its children
+        int size = 1;           // the number of wagons in the subtree of this node
+        Node left, right, parent;
+
+        Node(Wagon wagon) {
+            this.wagon = wagon;
+            this.priority = ThreadLocalRandom.current().nextInt();
+        }
+    }
+
+    private Node root;
+    private final Map<Wagon, Node> nodes = new HashMap<>();
+
+    /* Representation invariants:
+        an in-order traversal of the tree from root yields the wagons in the order of their positions
+        node.size == 1 + size(node.left) + size(node.right) for every node
+        node.priority >= priority of its children
+        nodes maps every wagon in the tree onto its node
+     */
+
+    public int size() {
+        return size(root);
+    }
+
+    public void clear() {
+        root = null;
+        nodes.clear();
+    }
+
+    /**
+     * Finds the wagon at the given position (starting at 1 for the first wagon)
+     *
+     * @param position
+     * @return the wagon found at the given position or null if the position is not valid
+     */
+    public Wagon get(int position) {
+        if (position < 1 || position > size()) {
+            return null;
+        }
+        Node node = root;
+        while (true) {
+            int leftSize = size(node.left);
+            if (position <= leftSize) {
+                node = node.left;
+            } else if (position == leftSize + 1) {
+                return node.wagon;
+            } else {
+                position -= leftSize + 1;
+                node = node.right;
+            }
+        }
+    }
+
+    /**
+     * @param wagon
+     * @return the position of the given wagon (starting at 1) or -1 if the wagon is not in the index
+     */
+    public int positionOf(Wagon wagon) {
+        Node node = nodes.get(wagon);
+        if (node == null) {
+            return -1;
+        }
+        int position = size(node.left) + 1;
+        // every ancestor that has been reached from its right subtree precedes the node with its left subtree
+        for (Node child = node, parent = node.parent; parent != null; child = parent, parent = parent.parent) {
+            if (parent.right == child) {
+                position += size(parent.left) + 1;
+            }
+        }
+        return position;
+    }
+
+    /**
+     * Inserts the given wagon and all its successors at/before the given position
+     *
+     * @param position 1 <= position <= size() + 1
+     * @param head     the first wagon of the sequence to be inserted
+     */
+    public void insert(int position, Wagon head) {
+        Node sequence = null;
+        for (Wagon wagon = head; wagon != null; wagon = wagon.getNextWagon()) {
+            Node node = new Node(wagon);
+            nodes.put(wagon, node);
+            sequence = merge(sequence, node);
+        }
+        Node[] parts = split(root, position - 1);
+        root = detach(merge(merge(parts[0], sequence), parts[1]));
+    }
+
+    /**
+     * Removes the given wagon from the index
+     *
+     * @param wagon
+     */
+    public void remove(Wagon wagon) {
+        int position = positionOf(wagon);
+        if (position < 0) {
+            return;
+        }
+        Node[] front = split(root, position - 1);
+        Node[] rear = split(front[1], 1);
+        nodes.remove(wagon);
+        root = detach(merge(front[0], rear[1]));
+    }
+
+    /**
+     * Removes the wagons at the given position and beyond from the index
+     *
+     * @param position 1 <= position <= size()
+     */
+    public void removeFrom(int position) {
+        Node[] parts = split(root, position - 1);
+        root = detach(parts[0]);
+        forget(parts[1]);
+    }
+
+    private void forget(Node node) {
+        if (node != null) {
+            nodes.remove(node.wagon);
+            forget(node.left);
+            forget(node.right);
+        }
+    }
+
+    private static int size(Node node) {
+        return node == null ? 0 : node.size;
+    }
+
+    private static Node detach(Node node) {
+        if (node != null) {
+            node.parent = null;
+        }
+        return node;
+    }
+
+    /**
+     * recalculates the size of the node and reconnects the parent links of its children
+     */
+    private static Node update(Node node) {
+        node.size = 1 + size(node.left) + size(node.right);
+        if (node.left != null) {
+            node.left.parent = node;
+        }
+        if (node.right != null) {
+            node.right.parent = node;
+        }
+        return node;
+    }
+
+    /**
+     * concatenates two trees, all positions in the left tree precede the positions in the right tree
+     */
+    private static Node merge(Node left, Node right) {
+        if (left == null) {
+            return right;
+        }
+        if (right == null) {
+            return left;
+        }
+        if (left.priority >= right.priority) {
+            left.right = merge(left.right, right);
+            return update(left);
+        } else {
+            right.left = merge(left, right.left);
+            return update(right);
+        }
+    }
+
+    /**
+     * splits a tree into the first count positions and the remaining positions
+     *
+     * @return an array with the two parts
+     */
+    private static Node[] split(Node node, int count) {
+        if (node == null) {
+            return new Node[]{null, null};
+        }
+        if (size(node.left) < count) {
+            Node[] parts = split(node.right, count - size(node.left) - 1);
+            node.right = parts[0];
+            parts[0] = update(node);
+            detach(parts[1]);
+            return parts;
+        } else {
+            Node[] parts = split(node.left, count);
+            node.left = parts[1];
+            parts[1] = update(node);
+            detach(parts[0]);
+            return parts;
+        }
+    }
+}
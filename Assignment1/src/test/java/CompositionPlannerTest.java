@@ -0,0 +1,111 @@
+import models.*;
+import org.junit.jupiter.api.*;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestMethodOrder(MethodOrderer.MethodName.class)
+public class CompositionPlannerTest {
+    CompositionPlanner planner;
+
+    @BeforeEach
+    public void setup() {
+        Locale.setDefault(Locale.ENGLISH);
+        planner = new CompositionPlanner("Amsterdam", "Berlin");
+    }
+
+    @Test
+    public void T01_ShouldPlanHomogeneousTrainsWithinCapacity() {
+        List<Wagon> wagons = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            wagons.add((Wagon)(Object)new PassengerWagon(8000 + i, 40));
+        }
+        for (int i = 0; i < 4; i++) {
+            wagons.add((Wagon)(Object)new FreightWagon(9000 + i, 50000));
+        }
+        List<Locomotive> engines = List.of(new Locomotive(1, 4), new Locomotive(2, 6),
+                new Locomotive(3, 10), new Locomotive(4, 5), new Locomotive(5, 12));
+
+        List<Train> trains = planner.plan(wagons, engines);
+
+        // the 10 passenger wagons fit behind the engine of 10 and the 4 freight wagons behind the engine of 4
+        assertEquals(2, trains.size());
+        assertTrue(planner.getUnassignedWagons().isEmpty());
+        int numberOfWagons = 0;
+        for (Train train : trains) {
+            TrainTest.checkRepresentationInvariant(train);
+            numberOfWagons += train.getNumberOfWagons();
+        }
+        assertEquals(14, numberOfWagons);
+        assertEquals(400, trains.get(0).getTotalNumberOfSeats());
+        assertEquals(10, trains.get(0).getEngine().getMaxWagons());
+        assertEquals(200000, trains.get(1).getTotalMaxWeight());
+        assertEquals(4, trains.get(1).getEngine().getMaxWagons());
+    }
+
+    @Test
+    public void T02_ShouldReportWagonsWithoutEngine() {
+        List<Wagon> wagons = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            wagons.add((Wagon)(Object)new PassengerWagon(8000 + i, 40));
+        }
+        wagons.add((Wagon)(Object)new FreightWagon(9000, 50000));
+
+        List<Train> trains = planner.plan(wagons, List.of(new Locomotive(1, 3)));
+
+        assertEquals(1, trains.size());
+        assertTrue(trains.get(0).isPassengerTrain());
+        assertEquals(3, planner.getUnassignedWagons().size());
+    }
+
+    @Test
+    public void T03_ShouldPlanLargePoolsQuickly() {
+        List<Wagon> wagons = new ArrayList<>();
+        for (int i = 0; i < 100000; i++) {
+            wagons.add(i % 3 == 0 ? (Wagon)(Object)new FreightWagon(i, 40000) : (Wagon)(Object)new PassengerWagon(i, 40));
+        }
+        List<Locomotive> engines = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            engines.add(new Locomotive(i, 5 + i % 20));
+        }
+
+        List<Train> trains = assertTimeout(Duration.ofSeconds(2), () -> planner.plan(wagons, engines));
+
+        assertTrue(planner.getUnassignedWagons().isEmpty());
+        assertEquals(100000, trains.stream().mapToInt(Train::getNumberOfWagons).sum());
+        // no plan can do with fewer trains than the largest engines that together could pull all wagons,
+        // and splitting the wagons by type costs at most one extra train per type
+        int lowerBound = 0;
+        for (int remaining = 100000; remaining > 0; lowerBound++) {
+            // there are 500 engines of each capacity, take the largest first
+            remaining -= 24 - lowerBound / 500;
+        }
+        assertTrue(trains.size() <= lowerBound + 2, "the planner should prefer the largest engines");
+        for (Train train : trains) {
+            TrainTest.checkRepresentationInvariant(train);
+        }
+    }
+
+    @Test
+    public void T04_ShouldRejectWagonsThatAreNotLoose() {
+        Wagon loose = (Wagon)(Object)new PassengerWagon(8000, 40);
+        Wagon head = (Wagon)(Object)new PassengerWagon(8001, 40);
+        Wagon tail = (Wagon)(Object)new PassengerWagon(8002, 40);
+        head.attachTail(tail);
+        Train train = new Train(new Locomotive(1, 5), "Amsterdam", "Paris");
+        Wagon attached = (Wagon)(Object)new PassengerWagon(8003, 40);
+        train.attachToRear(attached);
+
+        assertThrows(IllegalArgumentException.class,
+                () -> planner.plan(List.of(loose, tail), List.of(new Locomotive(2, 5))));
+        assertThrows(IllegalArgumentException.class,
+                () -> planner.plan(List.of(loose, attached), List.of(new Locomotive(2, 5))));
+        assertSame(tail, head.getNextWagon(), "the sequence of the caller should be left intact");
+        assertSame(attached, train.getFirstWagon());
+        assertFalse(loose.hasNextWagon());
+    }
+}
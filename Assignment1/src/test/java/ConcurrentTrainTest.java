@@ -0,0 +1,162 @@
+import models.*;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestMethodOrder(MethodOrderer.MethodName.class)
+public class ConcurrentTrainTest {
+    static final int NUMBER_OF_TRAINS = 4;
+    static final int WAGONS_PER_TRAIN = 100;
+    static final int NUMBER_OF_WAGONS = NUMBER_OF_TRAINS * WAGONS_PER_TRAIN;
+
+    ConcurrentTrain[] trains;
+
+    @BeforeEach
+    public void setup() {
+        Locale.setDefault(Locale.ENGLISH);
+        trains = new ConcurrentTrain[NUMBER_OF_TRAINS];
+        for (int t = 0; t < NUMBER_OF_TRAINS; t++) {
+            trains[t] = new ConcurrentTrain(new Locomotive(t, NUMBER_OF_WAGONS), "Amsterdam", "Yard-" + t);
+            for (int w = 0; w < WAGONS_PER_TRAIN; w++) {
+                assertTrue(trains[t].attachToRear((Wagon)(Object)new PassengerWagon(t * WAGONS_PER_TRAIN + w, 10)));
+            }
+        }
+    }
+
+    @Test
+    public void T01_ShouldPublishAggregatesOfMutations() {
+        assertEquals(WAGONS_PER_TRAIN, trains[0].getNumberOfWagons());
+        assertEquals(10 * WAGONS_PER_TRAIN, trains[0].getTotalNumberOfSeats());
+
+        assertTrue(trains[0].splitAtPosition(WAGONS_PER_TRAIN / 2 + 1, trains[1]));
+        assertEquals(WAGONS_PER_TRAIN / 2, trains[0].getNumberOfWagons());
+        assertEquals(WAGONS_PER_TRAIN * 3 / 2, trains[1].getNumberOfWagons());
+
+        assertTrue(trains[1].moveOneWagon(WAGONS_PER_TRAIN, trains[0]));
+        assertEquals(WAGONS_PER_TRAIN / 2 + 1, trains[0].getNumberOfWagons());
+        assertEquals(WAGONS_PER_TRAIN, trains[0].getLastWagonAttached().getId());
+
+        assertFalse(trains[2].attachToRear(trains[3].getFirstWagon()),
+                "wagons of another train can only be moved atomically by moveOneWagon and splitAtPosition");
+    }
+
+    @Test
+    public void T02_ParallelShuntingShouldKeepAllInvariants() throws InterruptedException {
+        shuntInParallel(trains);
+    }
+
+    @Test
+    public void T03_MovesToFullTrainsShouldChangeNeitherTrain() throws InterruptedException {
+        ConcurrentTrain full = new ConcurrentTrain(new Locomotive(10, 1), "Amsterdam", "Yard-full");
+        assertTrue(full.attachToRear((Wagon)(Object)new PassengerWagon(NUMBER_OF_WAGONS, 10)));
+        ConcurrentTrain freight = new ConcurrentTrain(new Locomotive(11, 10), "Amsterdam", "Yard-freight");
+        assertTrue(freight.attachToRear((Wagon)(Object)new FreightWagon(NUMBER_OF_WAGONS + 1, 1000)));
+
+        assertFalse(trains[0].moveOneWagon(0, full));
+        assertFalse(trains[0].moveOneWagon(0, freight));
+        assertEquals(WAGONS_PER_TRAIN, trains[0].getNumberOfWagons());
+        assertSame(trains[0].findWagonById(0), trains[0].getFirstWagon());
+        assertEquals(1, full.getNumberOfWagons());
+        assertEquals(1, freight.getNumberOfWagons());
+
+        // shunting between trains with little spare capacity rejects most moves
+        ConcurrentTrain[] limitedTrains = new ConcurrentTrain[NUMBER_OF_TRAINS];
+        for (int t = 0; t < NUMBER_OF_TRAINS; t++) {
+            limitedTrains[t] = new ConcurrentTrain(new Locomotive(t, WAGONS_PER_TRAIN + 2), "Amsterdam", "Yard-" + t);
+            assertTrue(trains[t].splitAtPosition(1, limitedTrains[t]));
+        }
+        shuntInParallel(limitedTrains);
+        for (ConcurrentTrain train : limitedTrains) {
+            assertTrue(train.getNumberOfWagons() <= WAGONS_PER_TRAIN + 2);
+        }
+    }
+
+    /**
+     * moves wagons between the trains from many threads, and checks that all invariants hold
+     * and all wagons are conserved afterwards
+     */
+    private static void shuntInParallel(ConcurrentTrain[] trains) throws InterruptedException {
+        AtomicBoolean running = new AtomicBoolean(true);
+        List<Throwable> failures = new ArrayList<>();
+        List<Thread> workers = new ArrayList<>();
+
+        for (int i = 0; i < 8; i++) {
+            workers.add(new Thread(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int step = 0; step < 20000; step++) {
+                    ConcurrentTrain from = trains[random.nextInt(NUMBER_OF_TRAINS)];
+                    ConcurrentTrain to = trains[random.nextInt(NUMBER_OF_TRAINS)];
+                    if (from == to) {
+                        continue;
+                    }
+                    if (random.nextInt(4) == 0) {
+                        from.splitAtPosition(1 + random.nextInt(WAGONS_PER_TRAIN), to);
+                    } else if (random.nextInt(50) == 0) {
+                        from.reverse();
+                    } else {
+                        from.moveOneWagon(random.nextInt(NUMBER_OF_WAGONS), to);
+                    }
+                }
+            }));
+        }
+        // a reader that never blocks the workers
+        Thread reader = new Thread(() -> {
+            while (running.get()) {
+                for (ConcurrentTrain train : trains) {
+                    ConcurrentTrain.Aggregates aggregates = train.getAggregates();
+                    int numberOfWagons = aggregates.numberOfWagons();
+                    if (numberOfWagons < 0 || numberOfWagons > NUMBER_OF_WAGONS
+                            || aggregates.totalNumberOfSeats() != 10 * numberOfWagons) {
+                        synchronized (failures) {
+                            failures.add(new AssertionError("Inconsistent aggregates published: " + numberOfWagons));
+                        }
+                    }
+                }
+            }
+        });
+        for (Thread worker : workers) {
+            worker.setUncaughtExceptionHandler((thread, e) -> {
+                synchronized (failures) {
+                    failures.add(e);
+                }
+            });
+            worker.start();
+        }
+        reader.start();
+        for (Thread worker : workers) {
+            worker.join();
+        }
+        running.set(false);
+        reader.join();
+
+        assertEquals(List.of(), failures);
+
+        // check the tail-connection and front-connection invariants and that every wagon is held by one train
+        Set<Integer> wagonIds = new HashSet<>();
+        int totalNumberOfWagons = 0;
+        for (ConcurrentTrain train : trains) {
+            Wagon first = train.getFirstWagon();
+            assertFalse(first != null && first.hasPreviousWagon(),
+                    "The first wagon in a train should not have a previous wagon");
+            int numberOfWagons = 0;
+            for (Wagon wagon = first; wagon != null; wagon = wagon.getNextWagon()) {
+                WagonTest.checkRepresentationInvariant(wagon);
+                assertTrue(wagonIds.add(wagon.getId()), "a wagon should only be held by one train");
+                assertSame(wagon, train.findWagonById(wagon.getId()));
+                numberOfWagons++;
+            }
+            assertEquals(numberOfWagons, train.getNumberOfWagons());
+            assertEquals(10 * numberOfWagons, train.getTotalNumberOfSeats());
+            totalNumberOfWagons += numberOfWagons;
+        }
+        assertEquals(NUMBER_OF_WAGONS, totalNumberOfWagons);
+    }
+}
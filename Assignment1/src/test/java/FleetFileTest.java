@@ -0,0 +1,128 @@
+import models.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestMethodOrder(MethodOrderer.MethodName.class)
+public class FleetFileTest {
+    @TempDir
+    Path directory;
+
+    Train passengerTrain, freightTrain, trainWithoutWagons;
+
+    @BeforeEach
+    public void setup() {
+        Locale.setDefault(Locale.ENGLISH);
+        passengerTrain = new Train(new Locomotive(24531, 7), "Amsterdam", "Paris");
+        for (int id = 8001; id <= 8005; id++) {
+            passengerTrain.attachToRear((Wagon)(Object)new PassengerWagon(id, id - 7970));
+        }
+        freightTrain = new Train(new Locomotive(63427, 5), "Amsterdam", "Berlin");
+        freightTrain.attachToRear((Wagon)(Object)new FreightWagon(9001, 50000));
+        freightTrain.attachToRear((Wagon)(Object)new FreightWagon(9002, 30000));
+        trainWithoutWagons = new Train(new Locomotive(29123, 7), "Amsterdam", "Köln");
+    }
+
+    @Test
+    public void T01_ReadShouldRestoreTheWrittenFleet() throws IOException {
+        Path file = directory.resolve("fleet.bin");
+        FleetFile.write(List.of(passengerTrain, freightTrain, trainWithoutWagons), file);
+
+        List<Train> fleet = FleetFile.read(file);
+        assertEquals(3, fleet.size());
+        assertEquals(passengerTrain.toString(), fleet.get(0).toString());
+        assertEquals(passengerTrain.getTotalNumberOfSeats(), fleet.get(0).getTotalNumberOfSeats());
+        assertEquals(7, fleet.get(0).getEngine().getMaxWagons());
+        assertEquals(24531, fleet.get(0).getEngine().getLocNumber());
+        assertTrue(fleet.get(1).isFreightTrain());
+        assertEquals(80000, fleet.get(1).getTotalMaxWeight());
+        assertEquals("Berlin", fleet.get(1).getDestination());
+        assertFalse(fleet.get(2).hasWagons());
+        assertEquals("Köln", fleet.get(2).getDestination());
+        for (Train train : fleet) {
+            for (Wagon wagon = train.getFirstWagon(); wagon != null; wagon = wagon.getNextWagon()) {
+                WagonTest.checkRepresentationInvariant(wagon);
+            }
+        }
+    }
+
+    @Test
+    public void T02_ReadIntoShouldFillTheStore() throws IOException {
+        Path file = directory.resolve("fleet.bin");
+        FleetFile.write(List.of(passengerTrain, freightTrain, trainWithoutWagons), file);
+
+        TrainStore store = new TrainStore();
+        int[] trains = FleetFile.readInto(store, file);
+        assertEquals(3, trains.length);
+        assertEquals(5, store.getNumberOfWagons(trains[0]));
+        assertEquals(passengerTrain.getTotalNumberOfSeats(), store.getTotalNumberOfSeats(trains[0]));
+        assertEquals(9002, store.getWagonId(store.getLastWagonAttached(trains[1])));
+        assertEquals(80000, store.getTotalMaxWeight(trains[1]));
+        assertFalse(store.hasWagons(trains[2]));
+        for (int train : trains) {
+            TrainStoreTest.checkRepresentationInvariant(store, train);
+        }
+    }
+
+    @Test
+    public void T03_ShouldLoadAMillionWagonFleet() throws IOException {
+        List<Train> fleet = new ArrayList<>();
+        int id = 0;
+        for (int t = 0; t < 100; t++) {
+            Train train = new Train(new Locomotive(t, 10000), "Amsterdam", "Yard-" + t);
+            for (int w = 0; w < 10000; w++) {
+                train.attachToRear(new PassengerWagon(id++, 40));
+            }
+            fleet.add(train);
+        }
+        Path file = directory.resolve("large.bin");
+        FleetFile.write(fleet, file);
+        assertTrue(Files.size(file) > 12L * id);
+
+        TrainStore store = new TrainStore(id);
+        int[] trains = FleetFile.readInto(store, file);
+        assertEquals(100, trains.length);
+        assertEquals(id, store.getNumberOfRegisteredWagons());
+        assertEquals(10000 * 40, store.getTotalNumberOfSeats(trains[99]));
+        assertEquals(fleet.get(50).findWagonAtPosition(5000).getId(),
+                store.getWagonId(store.findWagonAtPosition(trains[50], 5000)));
+    }
+
+    @Test
+    public void T04_ReadShouldRejectInvalidFiles() throws IOException {
+        Path file = directory.resolve("fleet.bin");
+        Files.writeString(file, "Amsterdam,Paris,8001");
+        assertThrows(IOException.class, () -> FleetFile.read(file));
+
+        FleetFile.write(List.of(passengerTrain), file);
+        byte[] bytes = Files.readAllBytes(file);
+        Files.write(file, Arrays.copyOf(bytes, bytes.length - 6));
+        assertThrows(IOException.class, () -> FleetFile.read(file));
+        assertThrows(IOException.class, () -> FleetFile.readInto(new TrainStore(), file));
+
+        // the type of the last wagon is neither passenger nor freight
+        bytes[bytes.length - 5] = 7;
+        Files.write(file, bytes);
+        assertThrows(IOException.class, () -> FleetFile.read(file));
+        assertThrows(IOException.class, () -> FleetFile.readInto(new TrainStore(), file));
+        // the number of trains in the header is negative or exceeds the size of the file
+        for (int numberOfTrains : new int[]{-1, Integer.MAX_VALUE, 2}) {
+            FleetFile.write(List.of(passengerTrain), file);
+            bytes = Files.readAllBytes(file);
+            ByteBuffer.wrap(bytes).putInt(8, numberOfTrains);
+            Files.write(file, bytes);
+            assertThrows(IOException.class, () -> FleetFile.read(file));
+            assertThrows(IOException.class, () -> FleetFile.readInto(new TrainStore(), file));
+        }
+    }
+}
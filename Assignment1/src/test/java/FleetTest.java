@@ -0,0 +1,159 @@
+import models.*;
+import org.junit.jupiter.api.*;
+
+import java.time.Duration;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestMethodOrder(MethodOrderer.MethodName.class)
+public class FleetTest {
+    Fleet fleet;
+    Train amsterdamParis, amsterdamBerlin, parisAmsterdam, berlinAmsterdam;
+
+    @BeforeEach
+    public void setup() {
+        Locale.setDefault(Locale.ENGLISH);
+        fleet = new Fleet();
+        amsterdamParis = new Train(new Locomotive(24531, 7), "Amsterdam", "Paris");
+        amsterdamBerlin = new Train(new Locomotive(63427, 10), "Amsterdam", "Berlin");
+        parisAmsterdam = new Train(new Locomotive(29123, 8), "Paris", "Amsterdam");
+        berlinAmsterdam = new Train(new Locomotive(63428, 6), "Berlin", "Amsterdam");
+        for (int id = 8001; id <= 8005; id++) {
+            amsterdamParis.attachToRear((Wagon)(Object)new PassengerWagon(id, 40));
+        }
+        for (int id = 9001; id <= 9003; id++) {
+            amsterdamBerlin.attachToRear((Wagon)(Object)new FreightWagon(id, 50000));
+        }
+        for (int id = 8011; id <= 8013; id++) {
+            parisAmsterdam.attachToRear((Wagon)(Object)new PassengerWagon(id, 40));
+        }
+        for (Train train : List.of(amsterdamParis, amsterdamBerlin, parisAmsterdam, berlinAmsterdam)) {
+            assertTrue(fleet.add(train));
+        }
+    }
+
+    @Test
+    public void T01_ShouldIndexTheTrains() {
+        assertFalse(fleet.add(amsterdamParis));
+        assertEquals(4, fleet.size());
+        assertEquals(Set.of(amsterdamParis, amsterdamBerlin), fleet.findByOrigin("Amsterdam"));
+        assertEquals(Set.of(parisAmsterdam, berlinAmsterdam), fleet.findByDestination("Amsterdam"));
+        assertEquals(Set.of(), fleet.findByDestination("London"));
+
+        // which trains to Amsterdam can still take 5 passenger wagons
+        assertEquals(List.of(parisAmsterdam, berlinAmsterdam), fleet.findTrainsThatCanTake("Amsterdam", 5, Wagon.Kind.PASSENGER));
+        assertEquals(List.of(berlinAmsterdam), fleet.findTrainsThatCanTake("Amsterdam", 6, Wagon.Kind.PASSENGER));
+        assertEquals(List.of(berlinAmsterdam), fleet.findTrainsThatCanTake("Amsterdam", 1, Wagon.Kind.FREIGHT));
+        assertEquals(List.of(amsterdamBerlin), fleet.findTrainsThatCanTake(7, Wagon.Kind.FREIGHT));
+
+        assertSame(amsterdamBerlin, fleet.findTrainByWagonId(9002));
+        assertNull(fleet.findTrainByWagonId(7001));
+        assertThrows(IllegalArgumentException.class, () -> new Fleet().add(amsterdamParis));
+    }
+
+    @Test
+    public void T02_IndexesShouldFollowChangesOfTheTrains() {
+        assertTrue(amsterdamParis.splitAtPosition(3, berlinAmsterdam));
+        assertSame(berlinAmsterdam, fleet.findTrainByWagonId(8004));
+        assertEquals(List.of(berlinAmsterdam, parisAmsterdam), fleet.findTrainsThatCanTake("Amsterdam", 3, Wagon.Kind.PASSENGER));
+        assertEquals(List.of(), fleet.findTrainsThatCanTake("Amsterdam", 1, Wagon.Kind.FREIGHT));
+
+        // a wagon taken by a train outside the fleet
+        Train outside = new Train(new Locomotive(1, 10), "Amsterdam", "London");
+        assertTrue(outside.attachToRear(parisAmsterdam.findWagonAtPosition(2)));
+        assertNull(fleet.findTrainByWagonId(8012));
+        assertSame(parisAmsterdam, fleet.findTrainByWagonId(8011));
+        assertEquals(List.of(parisAmsterdam), fleet.findTrainsThatCanTake("Amsterdam", 7, Wagon.Kind.PASSENGER));
+
+        // a change of the wagons behind the back of the train
+        Wagon wagon = new PassengerWagon(8021, 40);
+        amsterdamParis.getLastWagonAttached().attachTail(wagon);
+        assertSame(amsterdamParis, fleet.findTrainByWagonId(8021));
+        assertEquals(List.of(amsterdamParis), fleet.findTrainsThatCanTake("Paris", 4, Wagon.Kind.PASSENGER));
+        assertEquals(List.of(), fleet.findTrainsThatCanTake("Paris", 5, Wagon.Kind.PASSENGER));
+
+        assertTrue(fleet.remove(berlinAmsterdam));
+        assertFalse(fleet.remove(berlinAmsterdam));
+        assertNull(fleet.findTrainByWagonId(8004));
+        assertEquals(Set.of(parisAmsterdam), fleet.findByDestination("Amsterdam"));
+        assertTrue(new Fleet().add(berlinAmsterdam));
+    }
+
+    @Test
+    public void T03_QueriesShouldMatchAScanOfAllTrains() {
+        Random random = new Random(13);
+        String[] cities = {"Amsterdam", "Berlin", "Paris", "London", "Brussels"};
+        List<Train> trains = new ArrayList<>();
+        Fleet fleet = new Fleet();
+        int nextId = 0;
+        for (int t = 0; t < 200; t++) {
+            Train train = new Train(new Locomotive(t, 1 + random.nextInt(20)), cities[random.nextInt(5)], cities[random.nextInt(5)]);
+            trains.add(train);
+            fleet.add(train);
+        }
+        for (int step = 0; step < 5000; step++) {
+            Train train = trains.get(random.nextInt(trains.size()));
+            Train other = trains.get(random.nextInt(trains.size()));
+            switch (random.nextInt(4)) {
+                case 0:
+                    train.attachToRear(random.nextBoolean()
+                            ? new PassengerWagon(nextId++, 40) : new FreightWagon(nextId++, 1000));
+                    break;
+                case 1:
+                    if (train.hasWagons()) {
+                        train.splitAtPosition(1 + random.nextInt(train.getNumberOfWagons()), other);
+                    }
+                    break;
+                case 2:
+                    if (train.hasWagons()) {
+                        train.moveOneWagon(train.findWagonAtPosition(1 + random.nextInt(train.getNumberOfWagons())).getId(), other);
+                    }
+                    break;
+                default:
+                    train.reverse();
+            }
+
+            if (step % 50 == 0) {
+                String destination = cities[random.nextInt(5)];
+                int numberOfWagons = 1 + random.nextInt(10);
+                Wagon.Kind kind = random.nextBoolean() ? Wagon.Kind.PASSENGER : Wagon.Kind.FREIGHT;
+                Set<Train> expected = new HashSet<>();
+                for (Train candidate : trains) {
+                    if (candidate.getDestination().equals(destination)
+                            && (!candidate.hasWagons() || candidate.getFirstWagon().getKind() == kind)
+                            && candidate.getEngine().getMaxWagons() - candidate.getNumberOfWagons() >= numberOfWagons) {
+                        expected.add(candidate);
+                    }
+                }
+                List<Train> found = fleet.findTrainsThatCanTake(destination, numberOfWagons, kind);
+                assertEquals(expected, new HashSet<>(found));
+                assertEquals(expected.size(), found.size());
+
+                for (int i = 0; i < 20; i++) {
+                    Train holder = trains.get(random.nextInt(trains.size()));
+                    if (holder.hasWagons()) {
+                        Wagon wagon = holder.findWagonAtPosition(1 + random.nextInt(holder.getNumberOfWagons()));
+                        assertSame(holder, fleet.findTrainByWagonId(wagon.getId()));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void T04_QueriesShouldEndWhenTrainsShareWagons() {
+        berlinAmsterdam.setFirstWagon(parisAmsterdam.getFirstWagon());
+        assertTimeoutPreemptively(Duration.ofSeconds(2), () -> {
+            fleet.findTrainsThatCanTake("Amsterdam", 1, Wagon.Kind.PASSENGER);
+            fleet.findTrainsThatCanTake(1, Wagon.Kind.PASSENGER);
+            fleet.findTrainByWagonId(8011);
+        });
+        assertEquals(List.of(amsterdamParis), fleet.findTrainsThatCanTake("Paris", 2, Wagon.Kind.PASSENGER));
+
+        // the trains recover once they no longer share wagons
+        berlinAmsterdam.setFirstWagon(null);
+        assertEquals(3, parisAmsterdam.getNumberOfWagons());
+        assertEquals(List.of(parisAmsterdam, berlinAmsterdam), fleet.findTrainsThatCanTake("Amsterdam", 5, Wagon.Kind.PASSENGER));
+    }
+}
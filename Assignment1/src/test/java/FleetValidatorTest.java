@@ -0,0 +1,88 @@
+import models.*;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestMethodOrder(MethodOrderer.MethodName.class)
+public class FleetValidatorTest {
+    FleetValidator validator;
+    Train passengerTrain, freightTrain, trainWithoutWagons;
+    List<Train> fleet;
+
+    @BeforeEach
+    public void setup() {
+        Locale.setDefault(Locale.ENGLISH);
+        validator = new FleetValidator();
+        passengerTrain = new Train(new Locomotive(24531, 7), "Amsterdam", "Paris");
+        for (int id = 8001; id <= 8005; id++) {
+            passengerTrain.attachToRear((Wagon)(Object)new PassengerWagon(id, 40));
+        }
+        freightTrain = new Train(new Locomotive(63427, 3), "Amsterdam", "Berlin");
+        for (int id = 9001; id <= 9003; id++) {
+            freightTrain.attachToRear((Wagon)(Object)new FreightWagon(id, 50000));
+        }
+        trainWithoutWagons = new Train(new Locomotive(29123, 7), "Amsterdam", "London");
+        fleet = List.of(passengerTrain, freightTrain, trainWithoutWagons);
+    }
+
+    @Test
+    public void T01_AValidFleetShouldHaveNoViolations() {
+        assertEquals(List.of(), validator.validate(fleet));
+    }
+
+    @Test
+    public void T02_ShouldReportBrokenConnectionsAndCycles() {
+        Wagon wagon8003 = passengerTrain.findWagonAtPosition(3);
+        wagon8003.getNextWagon().setPreviousWagon(null);
+        List<String> violations = validator.validate(fleet);
+        assertEquals(1, violations.size());
+        assertTrue(violations.get(0).startsWith("Train 0 from Amsterdam to Paris: wagon [Wagon-8003] is pulling"), violations.get(0));
+
+        // a cycle back to the first wagon
+        freightTrain.getLastWagonAttached().setNextWagon(freightTrain.getFirstWagon());
+        violations = validator.validate(fleet);
+        assertEquals(2, violations.size());
+        assertTrue(violations.get(1).startsWith("Train 1 from Amsterdam to Berlin"), violations.get(1));
+    }
+
+    @Test
+    public void T03_ShouldReportSharedWagonsCapacityAndTypes() {
+        trainWithoutWagons.setFirstWagon(passengerTrain.getFirstWagon());
+        List<String> violations = validator.validate(fleet);
+        assertEquals(1, violations.size());
+        assertTrue(violations.get(0).contains("is held by another train as well"), violations.get(0));
+
+        Train other = new Train(new Locomotive(1, 10), "Amsterdam", "Brussels");
+        other.setFirstWagon(passengerTrain.findWagonAtPosition(2));
+        freightTrain.getLastWagonAttached().attachTail((Wagon)(Object)new PassengerWagon(8011, 20));
+        violations = validator.validate(List.of(passengerTrain, freightTrain, other));
+        assertEquals(3, violations.size(), violations.toString());
+        assertTrue(violations.get(0).contains("is not of kind FREIGHT"), violations.get(0));
+        assertTrue(violations.get(1).contains("4 wagons exceed the capacity of 3 wagons"), violations.get(1));
+        assertTrue(violations.get(2).contains("has previous wagon"), violations.get(2));
+    }
+
+    @Test
+    public void T04_ShouldValidateALargeFleetInParallel() {
+        List<Train> trains = new ArrayList<>();
+        int id = 0;
+        for (int t = 0; t < 1000; t++) {
+            Train train = new Train(new Locomotive(t, 1000), "Amsterdam", "Yard-" + t);
+            for (int w = 0; w < 1000; w++) {
+                train.attachToRear(new PassengerWagon(id++, 40));
+            }
+            trains.add(train);
+        }
+        assertEquals(List.of(), validator.validate(trains));
+
+        Wagon wagon = trains.get(700).findWagonAtPosition(500);
+        wagon.setNextWagon(trains.get(300).findWagonAtPosition(10));
+        List<String> violations = validator.validate(trains);
+        assertEquals(1, violations.size());
+        assertTrue(violations.get(0).startsWith("Train 700 "), violations.get(0));
+    }
+}
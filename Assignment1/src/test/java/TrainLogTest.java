@@ -0,0 +1,226 @@
+import models.*;
+import org.junit.jupiter.api.*;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestMethodOrder(MethodOrderer.MethodName.class)
+public class TrainLogTest {
+    @TempDir
+    Path directory;
+
+    Path file;
+    TrainLog log;
+    int passengerTrain, freightTrain, trainWithoutWagons;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        Locale.setDefault(Locale.ENGLISH);
+        file = directory.resolve("yard.log");
+        log = TrainLog.create(file);
+        passengerTrain = log.addTrain(new Locomotive(24531, 7), "Amsterdam", "Paris");
+        freightTrain = log.addTrain(new Locomotive(63427, 3), "Amsterdam", "Berlin");
+        trainWithoutWagons = log.addTrain(new Locomotive(29123, 7), "Amsterdam", "London");
+        for (int id = 8001; id <= 8005; id++) {
+            log.addPassengerWagon(id, 40);
+            assertTrue(log.attachToRear(passengerTrain, id));
+        }
+        for (int id = 9001; id <= 9002; id++) {
+            log.addFreightWagon(id, 50000);
+            assertTrue(log.attachToRear(freightTrain, id));
+        }
+    }
+
+    @AfterEach
+    public void close() throws IOException {
+        log.close();
+    }
+
+    @Test
+    public void T01_ReplayShouldRebuildTheFleet() throws IOException {
+        assertTrue(log.splitAtPosition(passengerTrain, 4, trainWithoutWagons));
+        log.reverse(trainWithoutWagons);
+        assertTrue(log.moveOneWagon(passengerTrain, 8002, trainWithoutWagons));
+        log.addFreightWagon(9003, 30000);
+        assertTrue(log.insertAtFront(freightTrain, 9003));
+        assertFalse(log.attachToRear(passengerTrain, 9001), "a wagon of another train is not loose");
+        assertFalse(log.attachToRear(trainWithoutWagons, 9004), "the wagon has not been added");
+        assertThrows(IllegalArgumentException.class, () -> log.addPassengerWagon(8001, 20));
+        log.close();
+
+        TrainLog replayed = TrainLog.replay(file);
+        assertEquals(log.getNumberOfEntries(), replayed.getNumberOfEntries());
+        assertEquals(describe(log), describe(replayed));
+        assertEquals(List.of(8001, 8003), idsOf(replayed.getTrain(passengerTrain)));
+        assertEquals(List.of(8005, 8004, 8002), idsOf(replayed.getTrain(trainWithoutWagons)));
+        assertEquals(List.of(9003, 9001, 9002), idsOf(replayed.getTrain(freightTrain)));
+
+        // new entries are appended to the replayed log
+        replayed.reverse(freightTrain);
+        replayed.close();
+        TrainLog again = TrainLog.replay(file);
+        assertEquals(List.of(9002, 9001, 9003), idsOf(again.getTrain(freightTrain)));
+        again.close();
+    }
+
+    @Test
+    public void T02_BatchShouldBeAppliedCompletelyOrNotAtAll() {
+        log.addPassengerWagon(8006, 40);
+        log.addPassengerWagon(8007, 40);
+        log.addPassengerWagon(8008, 40);
+        long entries = log.getNumberOfEntries();
+        String before = describe(log);
+
+        // the third wagon exceeds the capacity of the engine
+        TrainLog.Batch batch = log.batch()
+                .attachToRear(passengerTrain, 8006)
+                .reverse(passengerTrain)
+                .attachToRear(passengerTrain, 8007)
+                .attachToRear(passengerTrain, 8008);
+        assertFalse(batch.apply());
+        assertEquals(0, batch.size());
+        assertEquals(entries, log.getNumberOfEntries());
+        assertEquals(before, describe(log));
+
+        assertFalse(log.batch().splitAtPosition(passengerTrain, 2, freightTrain).apply(), "type rules are validated");
+        assertFalse(log.batch().moveOneWagon(passengerTrain, 9001, trainWithoutWagons).apply());
+
+        assertFalse(log.batch()
+                .attachToRear(passengerTrain, 8006)
+                .splitAtPosition(passengerTrain, 5, trainWithoutWagons)
+                .attachToRear(passengerTrain, 8007)
+                .moveOneWagon(trainWithoutWagons, 8008, passengerTrain)
+                .apply(), "8008 has not been attached");
+        assertTrue(log.batch()
+                .attachToRear(passengerTrain, 8006)
+                .splitAtPosition(passengerTrain, 5, trainWithoutWagons)
+                .attachToRear(passengerTrain, 8007)
+                .moveOneWagon(passengerTrain, 8007, trainWithoutWagons)
+                .apply());
+        assertEquals(List.of(8001, 8002, 8003, 8004), idsOf(log.getTrain(passengerTrain)));
+        assertEquals(List.of(8005, 8006, 8007), idsOf(log.getTrain(trainWithoutWagons)));
+        assertEquals(entries + 4, log.getNumberOfEntries());
+    }
+
+    @Test
+    public void T03_ReplayShouldDropAnIncompleteLastEntry() throws IOException {
+        log.reverse(passengerTrain);
+        log.close();
+        long length = Files.size(file);
+        Files.write(file, new byte[]{4, 0, 0}, StandardOpenOption.APPEND);
+
+        TrainLog replayed = TrainLog.replay(file);
+        assertEquals(length, Files.size(file));
+        assertEquals(describe(log), describe(replayed));
+        replayed.close();
+
+        Files.write(file, new byte[]{42, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0}, StandardOpenOption.APPEND);
+        assertThrows(IOException.class, () -> TrainLog.replay(file));
+        Files.writeString(file, "Amsterdam,Paris");
+        assertThrows(IOException.class, () -> TrainLog.replay(file));
+    }
+
+    @Test
+    public void T04_BatchesShouldMatchSequentialMutations() throws IOException {
+        Random random = new Random(11);
+        TrainLog reference = new TrainLog();
+        for (int t = 0; t < log.getNumberOfTrains(); t++) {
+            Train train = log.getTrain(t);
+            reference.addTrain(train.getEngine(), train.getOrigin(), train.getDestination());
+        }
+        for (int id = 8001; id <= 8005; id++) {
+            reference.addPassengerWagon(id, 40);
+            reference.attachToRear(passengerTrain, id);
+        }
+        for (int id = 9001; id <= 9002; id++) {
+            reference.addFreightWagon(id, 50000);
+            reference.attachToRear(freightTrain, id);
+        }
+        for (int id = 8006; id <= 8020; id++) {
+            log.addPassengerWagon(id, 40);
+            reference.addPassengerWagon(id, 40);
+        }
+
+        int applied = 0;
+        for (int round = 0; round < 2000; round++) {
+            TrainLog.Batch batch = log.batch();
+            List<int[]> operations = new ArrayList<>();
+            for (int i = 1 + random.nextInt(4); i > 0; i--) {
+                int train = random.nextInt(3);
+                int toTrain = random.nextInt(3);
+                int wagonId = random.nextInt(4) == 0 ? 9001 + random.nextInt(2) : 8001 + random.nextInt(20);
+                int kind = random.nextInt(5);
+                operations.add(new int[]{kind, train, wagonId, toTrain, 1 + random.nextInt(8)});
+            }
+            for (int[] o : operations) {
+                switch (o[0]) {
+                    case 0: batch.attachToRear(o[1], o[2]); break;
+                    case 1: batch.insertAtFront(o[1], o[2]); break;
+                    case 2: batch.moveOneWagon(o[1], o[2], o[3]); break;
+                    case 3: batch.splitAtPosition(o[1], o[4], o[3]); break;
+                    default: batch.reverse(o[1]);
+                }
+            }
+            if (batch.apply()) {
+                applied++;
+                for (int[] o : operations) {
+                    switch (o[0]) {
+                        case 0: assertTrue(reference.attachToRear(o[1], o[2])); break;
+                        case 1: assertTrue(reference.insertAtFront(o[1], o[2])); break;
+                        case 2: assertTrue(reference.moveOneWagon(o[1], o[2], o[3])); break;
+                        case 3: assertTrue(reference.splitAtPosition(o[1], o[4], o[3])); break;
+                        default: reference.reverse(o[1]);
+                    }
+                }
+            }
+            assertEquals(describe(reference), describe(log));
+        }
+        assertTrue(applied > 100, "a fair share of the batches should be valid: " + applied);
+
+        log.close();
+        TrainLog replayed = TrainLog.replay(file);
+        assertEquals(describe(log), describe(replayed));
+        replayed.close();
+    }
+
+    @Test
+    public void T05_FailedReverseShouldNotBeRecorded() throws IOException {
+        long entries = log.getNumberOfEntries();
+        assertFalse(log.reverse(log.getNumberOfTrains()));
+        assertFalse(log.reverse(-1));
+        assertEquals(entries, log.getNumberOfEntries());
+        assertTrue(log.reverse(passengerTrain));
+        log.close();
+
+        TrainLog replayed = TrainLog.replay(file);
+        assertEquals(log.getNumberOfEntries(), replayed.getNumberOfEntries());
+        assertEquals(List.of(8005, 8004, 8003, 8002, 8001), idsOf(replayed.getTrain(passengerTrain)));
+        replayed.close();
+    }
+
+    private static List<Integer> idsOf(Train train) {
+        List<Integer> ids = new ArrayList<>();
+        for (Wagon wagon = train.getFirstWagon(); wagon != null; wagon = wagon.getNextWagon()) {
+            ids.add(wagon.getId());
+        }
+        return ids;
+    }
+
+    private static String describe(TrainLog log) {
+        StringBuilder sb = new StringBuilder();
+        for (int t = 0; t < log.getNumberOfTrains(); t++) {
+            Train train = log.getTrain(t);
+            sb.append(idsOf(train)).append(" with ").append(train.getNumberOfWagons()).append(" wagons\n");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,146 @@
+import models.*;
+import org.junit.jupiter.api.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestMethodOrder(MethodOrderer.MethodName.class)
+public class TrainSnapshotTest {
+    Train passengerTrain;
+    List<PassengerWagon> passengerWagons;
+
+    @BeforeEach
+    public void setup() {
+        Locale.setDefault(Locale.ENGLISH);
+        passengerTrain = new Train(new Locomotive(24531, 7), "Amsterdam", "Paris");
+        passengerWagons = new ArrayList<>(List.of(
+                new PassengerWagon(8001, 36),
+                new PassengerWagon(8002, 18),
+                new PassengerWagon(8003, 48),
+                new PassengerWagon(8004, 44),
+                new PassengerWagon(8005, 46)
+        ));
+        for (PassengerWagon wagon : passengerWagons) {
+            passengerTrain.attachToRear((Wagon)(Object)wagon);
+        }
+    }
+
+    @Test
+    public void T01_SnapshotShouldCaptureTheComposition() {
+        TrainSnapshot snapshot = TrainSnapshot.of(passengerTrain);
+        assertEquals(5, snapshot.getNumberOfWagons());
+        assertEquals(passengerTrain.getTotalNumberOfSeats(), snapshot.getTotalNumberOfSeats());
+        assertTrue(snapshot.isPassengerTrain());
+        assertEquals(List.copyOf(passengerWagons), snapshot.getWagons());
+        assertSame(passengerWagons.get(2), snapshot.findWagonAtPosition(3));
+        assertNull(snapshot.findWagonAtPosition(6));
+
+        // changing the train afterwards does not change the snapshot
+        passengerTrain.reverse();
+        assertEquals(List.copyOf(passengerWagons), snapshot.getWagons());
+    }
+
+    @Test
+    public void T02_MutationsShouldKeepEarlierVersions() {
+        TrainSnapshot v1 = TrainSnapshot.of(passengerTrain);
+        TrainSnapshot v2 = v1.reverse();
+        TrainSnapshot v3 = v2.attachToRear((Wagon)(Object)new PassengerWagon(8006, 20));
+        TrainSnapshot.Split split = v3.splitAtPosition(3,
+                TrainSnapshot.empty(new Locomotive(1, 10), "Amsterdam", "Brussels"));
+
+        assertEquals(List.of(8001, 8002, 8003, 8004, 8005), idsOf(v1));
+        assertEquals(List.of(8005, 8004, 8003, 8002, 8001), idsOf(v2));
+        assertEquals(List.of(8005, 8004, 8003, 8002, 8001, 8006), idsOf(v3));
+        assertEquals(List.of(8005, 8004), idsOf(split.getTrain()));
+        assertEquals(List.of(8003, 8002, 8001, 8006), idsOf(split.getToTrain()));
+        assertEquals(36 + 18 + 48 + 20, split.getToTrain().getTotalNumberOfSeats());
+        assertEquals(List.of(8006, 8001, 8002, 8003), idsOf(split.getToTrain().reverse()));
+    }
+
+    @Test
+    public void T03_InvalidMutationsShouldReturnTheSameVersions() {
+        TrainSnapshot v1 = TrainSnapshot.of(passengerTrain);
+        assertSame(v1, v1.attachToRear((Wagon)(Object)new FreightWagon(9001, 50000)));
+        FreightWagon freightWagon = new FreightWagon(9002, 50000);
+        TrainSnapshot full = v1.attachToRear((Wagon)(Object)new PassengerWagon(8006, 20))
+                .attachToRear((Wagon)(Object)new PassengerWagon(8007, 20));
+        assertEquals(7, full.getNumberOfWagons());
+        assertSame(full, full.attachToRear((Wagon)(Object)new PassengerWagon(8008, 20)),
+                "the capacity of the engine is respected");
+
+        TrainSnapshot freight = TrainSnapshot.empty(new Locomotive(2, 10), "Amsterdam", "Rotterdam")
+                .attachToRear((Wagon)(Object)freightWagon);
+        TrainSnapshot.Split split = v1.splitAtPosition(2, freight);
+        assertSame(v1, split.getTrain());
+        assertSame(freight, split.getToTrain());
+        assertSame(v1, v1.splitAtPosition(6, freight).getTrain());
+    }
+
+    @Test
+    public void T04_VersionsShouldMatchTheTrainAfterRandomMutations() {
+        Random random = new Random(8);
+        Train train = new Train(new Locomotive(1, 10000), "Amsterdam", "Berlin");
+        Train other = new Train(new Locomotive(2, 10000), "Amsterdam", "Paris");
+        TrainSnapshot snapshot = TrainSnapshot.of(train);
+        TrainSnapshot otherSnapshot = TrainSnapshot.of(other);
+        List<TrainSnapshot> history = new ArrayList<>();
+        List<List<Wagon>> expectedHistory = new ArrayList<>();
+
+        int nextId = 0;
+        for (int step = 0; step < 1000; step++) {
+            int choice = random.nextInt(4);
+            if (choice == 0 || !train.hasWagons()) {
+                Wagon wagon = new PassengerWagon(nextId++, 1 + random.nextInt(50));
+                snapshot = snapshot.attachToRear(wagon);
+                assertTrue(train.attachToRear(wagon));
+            } else if (choice == 1) {
+                train.reverse();
+                snapshot = snapshot.reverse();
+            } else if (choice == 2) {
+                int position = 1 + random.nextInt(train.getNumberOfWagons());
+                TrainSnapshot.Split split = snapshot.splitAtPosition(position, otherSnapshot);
+                assertTrue(train.splitAtPosition(position, other));
+                snapshot = split.getTrain();
+                otherSnapshot = split.getToTrain();
+            } else if (other.hasWagons()) {
+                // bring the wagons of the other train back
+                TrainSnapshot.Split split = otherSnapshot.splitAtPosition(1, snapshot);
+                assertTrue(other.splitAtPosition(1, train));
+                otherSnapshot = split.getTrain();
+                snapshot = split.getToTrain();
+            }
+            history.add(snapshot);
+            expectedHistory.add(wagonsOf(train));
+            assertEquals(train.getNumberOfWagons(), snapshot.getNumberOfWagons());
+            assertEquals(train.getTotalNumberOfSeats(), snapshot.getTotalNumberOfSeats());
+            assertEquals(other.getNumberOfWagons(), otherSnapshot.getNumberOfWagons());
+        }
+
+        for (int i = 0; i < history.size(); i++) {
+            assertEquals(expectedHistory.get(i), history.get(i).getWagons(), "version " + i);
+        }
+        assertEquals(wagonsOf(other), otherSnapshot.getWagons());
+        int position = 1 + snapshot.getNumberOfWagons() / 2;
+        assertSame(train.findWagonAtPosition(position), snapshot.findWagonAtPosition(position));
+    }
+
+    private static List<Integer> idsOf(TrainSnapshot snapshot) {
+        List<Integer> ids = new ArrayList<>();
+        for (Wagon wagon : snapshot.getWagons()) {
+            ids.add(wagon.getId());
+        }
+        return ids;
+    }
+
+    private static List<Wagon> wagonsOf(Train train) {
+        List<Wagon> wagons = new ArrayList<>();
+        for (Wagon wagon = train.getFirstWagon(); wagon != null; wagon = wagon.getNextWagon()) {
+            wagons.add(wagon);
+        }
+        return wagons;
+    }
+}
@@ -0,0 +1,160 @@
+import models.*;
+import org.junit.jupiter.api.*;
+
+import java.util.Locale;
+import java.util.Random;
+
+import static models.TrainStore.NONE;
+import static org.junit.jupiter.api.Assertions.*;
+
+@TestMethodOrder(MethodOrderer.MethodName.class)
+public class TrainStoreTest {
+    TrainStore store;
+    int passengerTrain, freightTrain, trainWithoutWagons;
+
+    @BeforeEach
+    public void setup() {
+        Locale.setDefault(Locale.ENGLISH);
+        store = new TrainStore();
+        passengerTrain = store.addTrain(new Locomotive(24531, 8), "Amsterdam", "Paris");
+        for (int id = 8001; id <= 8007; id++) {
+            store.attachToRear(passengerTrain, store.addPassengerWagon(id, 40));
+        }
+        freightTrain = store.addTrain(new Locomotive(63427, 50), "Amsterdam", "Berlin");
+        for (int id = 9001; id <= 9003; id++) {
+            store.attachToRear(freightTrain, store.addFreightWagon(id, 10000));
+        }
+        trainWithoutWagons = store.addTrain(new Locomotive(29123, 7), "Amsterdam", "London");
+    }
+
+    @AfterEach
+    public void checkRepresentationInvariants() {
+        for (int train = 0; train < store.getNumberOfTrains(); train++) {
+            checkRepresentationInvariant(store, train);
+        }
+    }
+
+    public static void checkRepresentationInvariant(TrainStore store, int train) {
+        int first = store.getFirstWagon(train);
+        assertTrue(first == NONE || store.getPreviousWagon(first) == NONE,
+                "The first wagon in a train should not have a previous wagon");
+        int count = 0, seats = 0, last = NONE;
+        for (int wagon = first; wagon != NONE; wagon = store.getNextWagon(wagon)) {
+            int next = store.getNextWagon(wagon);
+            assertTrue(next == NONE || store.getPreviousWagon(next) == wagon,
+                    "A wagon should be the previous wagon of its next wagon, if any");
+            assertEquals(train, store.getTrainOf(wagon));
+            count++;
+            seats += store.getNumberOfSeats(wagon);
+            last = wagon;
+        }
+        assertEquals(last, store.getLastWagonAttached(train));
+        assertEquals(count, store.getNumberOfWagons(train));
+        assertEquals(seats, store.getTotalNumberOfSeats(train));
+    }
+
+    @Test
+    public void T01_ShouldReportTheCompositionOfTrains() {
+        assertEquals(7, store.getNumberOfWagons(passengerTrain));
+        assertEquals(280, store.getTotalNumberOfSeats(passengerTrain));
+        assertEquals(30000, store.getTotalMaxWeight(freightTrain));
+        assertTrue(store.isPassengerTrain(passengerTrain));
+        assertTrue(store.isFreightTrain(freightTrain));
+        assertFalse(store.hasWagons(trainWithoutWagons));
+        assertEquals(8004, store.getWagonId(store.findWagonAtPosition(passengerTrain, 4)));
+        assertEquals(8007, store.getWagonId(store.findWagonAtPosition(passengerTrain, 7)));
+        assertEquals(NONE, store.findWagonAtPosition(passengerTrain, 8));
+        assertEquals(passengerTrain, store.getTrainOf(store.findWagonById(8003)));
+        assertEquals(NONE, store.findWagonById(8000));
+    }
+
+    @Test
+    public void T02_ShouldRejectIncompatibleOperations() {
+        assertFalse(store.attachToRear(passengerTrain, store.findWagonById(9001)),
+                "cannot attach freight wagons to a passenger train");
+        assertFalse(store.moveOneWagon(passengerTrain, 8001, freightTrain),
+                "cannot move a passenger wagon to a freight train");
+        assertFalse(store.splitAtPosition(freightTrain, 1, passengerTrain),
+                "cannot split freight wagons towards a passenger train");
+        assertFalse(store.attachToRear(passengerTrain, store.findWagonById(8002)),
+                "cannot attach a wagon that is already on the train");
+        int smallTrain = store.addTrain(new Locomotive(13, 3), "Here", "There");
+        assertFalse(store.insertAtFront(smallTrain, store.findWagonById(8004)),
+                "cannot insert more wagons than the engine can pull");
+        assertThrows(IllegalArgumentException.class, () -> store.addPassengerWagon(8001, 10));
+        assertEquals(7, store.getNumberOfWagons(passengerTrain));
+        assertEquals(3, store.getNumberOfWagons(freightTrain));
+    }
+
+    @Test
+    public void T03_ShouldMoveSequencesBetweenTrains() {
+        assertTrue(store.splitAtPosition(passengerTrain, 5, trainWithoutWagons));
+        assertEquals(4, store.getNumberOfWagons(passengerTrain));
+        assertEquals(3, store.getNumberOfWagons(trainWithoutWagons));
+
+        assertTrue(store.attachToRear(trainWithoutWagons, store.findWagonById(8003)),
+                "attachToRear should take the sequence from another train");
+        assertEquals(2, store.getNumberOfWagons(passengerTrain));
+        assertEquals(5, store.getNumberOfWagons(trainWithoutWagons));
+
+        assertTrue(store.moveOneWagon(trainWithoutWagons, 8006, passengerTrain));
+        assertEquals(8006, store.getWagonId(store.getLastWagonAttached(passengerTrain)));
+
+        store.reverse(trainWithoutWagons);
+        assertEquals(8004, store.getWagonId(store.getFirstWagon(trainWithoutWagons)));
+        assertEquals(8005, store.getWagonId(store.getLastWagonAttached(trainWithoutWagons)));
+    }
+
+    @Test
+    public void T04_ShouldBehaveAsObjectTrains() {
+        Random random = new Random(2022);
+        TrainStore store = new TrainStore();
+        Train[] trains = { new Train(new Locomotive(1, 60), "A", "B"), new Train(new Locomotive(2, 60), "A", "C") };
+        int[] handles = { store.addTrain(new Locomotive(1, 60), "A", "B"), store.addTrain(new Locomotive(2, 60), "A", "C") };
+        int nextId = 1;
+
+        for (int step = 0; step < 2000; step++) {
+            int from = random.nextInt(2), to = 1 - from;
+            int position = 1 + random.nextInt(trains[from].getNumberOfWagons() + 1);
+            switch (random.nextInt(5)) {
+                case 0 -> {
+                    int seats = random.nextInt(50);
+                    assertEquals(trains[from].insertAtPosition(position, (Wagon)(Object)new PassengerWagon(nextId, seats)),
+                            store.insertAtPosition(handles[from], position, store.addPassengerWagon(nextId, seats)));
+                    nextId++;
+                }
+                case 1 -> assertEquals(trains[from].splitAtPosition(position, trains[to]),
+                        store.splitAtPosition(handles[from], position, handles[to]));
+                case 2 -> {
+                    // Train.moveOneWagon does not verify the capacity of toTrain
+                    Wagon wagon = trains[from].findWagonAtPosition(position);
+                    if (wagon != null && trains[to].getNumberOfWagons() < 60) {
+                        assertEquals(trains[from].moveOneWagon(wagon.getId(), trains[to]),
+                                store.moveOneWagon(handles[from], wagon.getId(), handles[to]));
+                    }
+                }
+                case 3 -> {
+                    trains[from].reverse();
+                    store.reverse(handles[from]);
+                }
+                default -> {
+                    int seats = random.nextInt(50);
+                    assertEquals(trains[from].attachToRear((Wagon)(Object)new PassengerWagon(nextId, seats)),
+                            store.attachToRear(handles[from], store.addPassengerWagon(nextId, seats)));
+                    nextId++;
+                }
+            }
+
+            for (int t = 0; t < 2; t++) {
+                checkRepresentationInvariant(store, handles[t]);
+                assertEquals(trains[t].getNumberOfWagons(), store.getNumberOfWagons(handles[t]));
+                assertEquals(trains[t].getTotalNumberOfSeats(), store.getTotalNumberOfSeats(handles[t]));
+                int wagon = store.getFirstWagon(handles[t]);
+                for (Wagon expected = trains[t].getFirstWagon(); expected != null; expected = expected.getNextWagon()) {
+                    assertEquals(expected.getId(), store.getWagonId(wagon));
+                    wagon = store.getNextWagon(wagon);
+                }
+            }
+        }
+    }
+}
@@ -1,7 +1,10 @@
 import models.*;
 import org.junit.jupiter.api.*;
 
+import java.io.IOException;
+import java.io.StringWriter;
 import java.util.Locale;
+import java.util.Random;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.lessThanOrEqualTo;
@@ -401,4 +404,148 @@ public class TrainTest {
         trainWithoutWagons.reverse();
         assertEquals(0, trainWithoutWagons.getNumberOfWagons());
     }
+
+    @Test
+    public void T23_CachedAggregatesShouldFollowChangesOfTheWagons() {
+        assertEquals(7, passengerTrain.getNumberOfWagons());
+        assertEquals(254, passengerTrain.getTotalNumberOfSeats());
+
+        // change the sequence behind the back of the train
+        passengerWagon8002.detachTail();
+        assertEquals(2, passengerTrain.getNumberOfWagons());
+        assertEquals(64, passengerTrain.getTotalNumberOfSeats());
+        assertSame(passengerWagon8002, passengerTrain.getLastWagonAttached());
+
+        passengerWagon8002.attachTail(passengerWagon1);
+        assertEquals(5, passengerTrain.getNumberOfWagons());
+        assertEquals(214, passengerTrain.getTotalNumberOfSeats());
+        assertSame(passengerWagon3, passengerTrain.getLastWagonAttached());
+
+        // a wagon taken from another train by attachToRear also updates the other train
+        assertTrue(trainWithoutWagons.attachToRear(passengerWagon2));
+        assertEquals(3, passengerTrain.getNumberOfWagons());
+        assertEquals(114, passengerTrain.getTotalNumberOfSeats());
+        assertEquals(2, trainWithoutWagons.getNumberOfWagons());
+        assertEquals(100, trainWithoutWagons.getTotalNumberOfSeats());
+        assertEquals(0, freightTrain.getTotalNumberOfSeats());
+        assertEquals(120000, freightTrain.getTotalMaxWeight());
+    }
+
+    @Test
+    public void T24_ShouldBuildLongTrainsWagonByWagon() {
+        final int numberOfWagons = 100000;
+        Train longTrain = new Train(new Locomotive(1, numberOfWagons), "Amsterdam", "Rome");
+        for (int i = 1; i <= numberOfWagons; i++) {
+            assertTrue(longTrain.attachToRear((Wagon)(Object)new PassengerWagon(i, 10)));
+        }
+        assertEquals(numberOfWagons, longTrain.getNumberOfWagons());
+        assertEquals(10 * numberOfWagons, longTrain.getTotalNumberOfSeats());
+        assertEquals(numberOfWagons, longTrain.getLastWagonAttached().getId());
+        assertFalse(longTrain.canAttach((Wagon)(Object)new PassengerWagon(0, 10)),
+                "the engine of the long train should be at full capacity");
+
+        longTrain.reverse();
+        assertEquals(1, longTrain.getLastWagonAttached().getId());
+        assertEquals(numberOfWagons, longTrain.getNumberOfWagons());
+    }
+
+    @Test
+    public void T25_WagonIndexShouldFollowMovesAndSplits() {
+        assertTrue(passengerTrain.moveOneWagon(8004, trainWithoutWagons));
+        assertNull(passengerTrain.findWagonById(8004));
+        assertEquals(8004, trainWithoutWagons.findWagonById(8004).getId());
+        assertFalse(passengerTrain.moveOneWagon(8004, trainWithoutWagons),
+                "a wagon that has been moved cannot be moved again from its former train");
+
+        assertTrue(passengerTrain.splitAtPosition(5, trainWithoutWagons));
+        assertNull(passengerTrain.findWagonById(8006));
+        assertSame(passengerTrain.findWagonAtPosition(4), passengerTrain.findWagonById(8005));
+        assertEquals(8006, trainWithoutWagons.findWagonById(8006).getId());
+        assertEquals(8007, trainWithoutWagons.findWagonById(8007).getId());
+
+        // changes behind the back of the train are picked up by the index as well
+        passengerWagon8001.detachTail();
+        assertNull(passengerTrain.findWagonById(8002));
+        assertSame(passengerWagon8001, passengerTrain.findWagonById(8001));
+    }
+
+    @Test
+    public void T26_IndexedTrainsShouldBehaveAsPlainTrains() {
+        Random random = new Random(2022);
+        Train[] plain = { new Train(new Locomotive(1, 60), "A", "B"), new Train(new Locomotive(2, 60), "A", "C") };
+        Train[] indexed = { new Train(new Locomotive(1, 60), "A", "B", true), new Train(new Locomotive(2, 60), "A", "C", true) };
+        int nextId = 1;
+
+        for (int step = 0; step < 2000; step++) {
+            int from = random.nextInt(2), to = 1 - from;
+            int position = 1 + random.nextInt(plain[from].getNumberOfWagons() + 1);
+            switch (random.nextInt(5)) {
+                case 0 -> {
+                    int seats = random.nextInt(50);
+                    assertEquals(plain[from].insertAtPosition(position, (Wagon)(Object)new PassengerWagon(nextId, seats)),
+                            indexed[from].insertAtPosition(position, (Wagon)(Object)new PassengerWagon(nextId, seats)));
+                    nextId++;
+                }
+                case 1 -> assertEquals(plain[from].splitAtPosition(position, plain[to]),
+                        indexed[from].splitAtPosition(position, indexed[to]));
+                case 2 -> {
+                    Wagon wagon = plain[from].findWagonAtPosition(position);
+                    if (wagon != null) {
+                        assertEquals(plain[from].moveOneWagon(wagon.getId(), plain[to]),
+                                indexed[from].moveOneWagon(wagon.getId(), indexed[to]));
+                    }
+                }
+                case 3 -> {
+                    plain[from].reverse();
+                    indexed[from].reverse();
+                }
+                default -> {
+                    int seats = random.nextInt(50);
+                    assertEquals(plain[from].attachToRear((Wagon)(Object)new PassengerWagon(nextId, seats)),
+                            indexed[from].attachToRear((Wagon)(Object)new PassengerWagon(nextId, seats)));
+                    nextId++;
+                }
+            }
+
+            for (int t = 0; t < 2; t++) {
+                checkRepresentationInvariant(indexed[t]);
+                assertEquals(plain[t].getNumberOfWagons(), indexed[t].getNumberOfWagons());
+                assertEquals(plain[t].getTotalNumberOfSeats(), indexed[t].getTotalNumberOfSeats());
+                for (int p = 0; p <= plain[t].getNumberOfWagons() + 1; p++) {
+                    Wagon expected = plain[t].findWagonAtPosition(p);
+                    Wagon actual = indexed[t].findWagonAtPosition(p);
+                    assertEquals(expected == null ? null : expected.getId(), actual == null ? null : actual.getId());
+                }
+            }
+        }
+    }
+
+    @Test
+    public void T27_ShouldRenderLongTrainsWithTruncatedMiddle() throws IOException {
+        StringBuilder full = new StringBuilder();
+        passengerTrain.appendTo(full, 3);
+        assertEquals(passengerTrain.toString(), full.toString(), "7 wagons fit within 2 * 3 + 1");
+        assertEquals("Welcome to the HvA trains configurator\n" +
+                "[Loc-8001][8001][8002][8003][8004][8005][8006][8007] with 7 wagons from Amsterdam to Paris\n" +
+                "Total number of seats: 254\n", full.toString());
+
+        StringBuilder cut = new StringBuilder();
+        passengerTrain.appendTo(cut, 2);
+        assertEquals("Welcome to the HvA trains configurator\n" +
+                "[Loc-8001][8001][8002]...[8006][8007] with 7 wagons from Amsterdam to Paris\n" +
+                "Total number of seats: 254\n", cut.toString());
+
+        Train longTrain = new Train(new Locomotive(1, 200000), "Amsterdam", "Paris");
+        for (int id = 0; id < 200000; id++) {
+            longTrain.attachToRear(new PassengerWagon(id, 1));
+        }
+        StringWriter writer = new StringWriter();
+        longTrain.appendTo(writer, 10);
+        assertTrue(writer.toString().contains("[9]...[199990]"), writer.toString());
+        assertTrue(writer.toString().contains("[199999] with 200000 wagons"), writer.toString());
+
+        StringBuilder empty = new StringBuilder();
+        trainWithoutWagons.appendTo(empty, 10);
+        assertTrue(empty.toString().contains(" with 0 wagons from Amsterdam to London"));
+    }
 }
@@ -309,58 +309,94 @@ public class WagonTest {
         assertEquals(passengerWagon1, passengerWagon2.getPreviousWagon());
     }
 
-//    /**
-//     * Regarding grading, reverse is not necessary for a sufficient result.
-//     */
-//    @Test
-//    public void T10_WholeSequenceOfFourShouldBeReversed() {
-//        passengerWagon1.attachTail(passengerWagon2);
-//        passengerWagon2.attachTail(passengerWagon3);
-//        passengerWagon3.attachTail(passengerWagon4);
-//
-//        // reverse full sequence
-//        Wagon rev = passengerWagon1.reverseSequence();
-//
-//        assertEquals(4, rev.getSequenceLength());
-//        assertEquals(passengerWagon4, rev);
-//        assertEquals(passengerWagon3, rev.getNextWagon());
-//        assertFalse(rev.hasPreviousWagon());
-//
-//        assertEquals(passengerWagon2, passengerWagon3.getNextWagon());
-//        assertEquals(passengerWagon4, passengerWagon3.getPreviousWagon());
-//
-//        assertEquals(passengerWagon1, passengerWagon2.getNextWagon());
-//        assertEquals(passengerWagon3, passengerWagon2.getPreviousWagon());
-//
-//        assertFalse(passengerWagon1.hasNextWagon());
-//        assertEquals(passengerWagon2, passengerWagon1.getPreviousWagon());
-//    }
-//
-//    @Test
-//    /**
-//     * Regarding grading, reverse is not necessary for a sufficient result.
-//     */
-//    public void T10_PartiallyReverseASequenceOfFour() {
-//        passengerWagon1.attachTail(passengerWagon2);
-//        passengerWagon2.attachTail(passengerWagon3);
-//        passengerWagon3.attachTail(passengerWagon4);
-//
-//        // reverse part of the sequence
-//        Wagon rev = passengerWagon3.reverseSequence();
-//        assertEquals(2, rev.getSequenceLength(), "After reversing the middle wagon, the sequence length should remain the same");
-//        assertEquals(passengerWagon4, rev);
-//
-//        assertEquals(passengerWagon3, rev.getNextWagon());
-//        assertEquals(passengerWagon2, rev.getPreviousWagon());
-//
-//        assertFalse(passengerWagon3.hasNextWagon());
-//        assertEquals(passengerWagon4, passengerWagon3.getPreviousWagon());
-//
-//        assertEquals(4, passengerWagon1.getSequenceLength());
-//        assertFalse(passengerWagon1.hasPreviousWagon());
-//        assertEquals(passengerWagon2, passengerWagon1.getNextWagon());
-//
-//        assertEquals(passengerWagon1, passengerWagon2.getPreviousWagon());
-//        assertEquals(passengerWagon4, passengerWagon2.getNextWagon());
-//    }
+    /**
+     * Regarding grading, reverse is not necessary for a sufficient result.
+     */
+    @Test
+    public void T10_WholeSequenceOfFourShouldBeReversed() {
+        passengerWagon1.attachTail(passengerWagon2);
+        passengerWagon2.attachTail(passengerWagon3);
+        passengerWagon3.attachTail(passengerWagon4);
+
+        // reverse full sequence
+        Wagon rev = passengerWagon1.reverseSequence();
+
+        assertEquals(4, rev.getSequenceLength());
+        assertEquals(passengerWagon4, rev);
+        assertEquals(passengerWagon3, rev.getNextWagon());
+        assertFalse(rev.hasPreviousWagon());
+
+        assertEquals(passengerWagon2, passengerWagon3.getNextWagon());
+        assertEquals(passengerWagon4, passengerWagon3.getPreviousWagon());
+
+        assertEquals(passengerWagon1, passengerWagon2.getNextWagon());
+        assertEquals(passengerWagon3, passengerWagon2.getPreviousWagon());
+
+        assertFalse(passengerWagon1.hasNextWagon());
+        assertEquals(passengerWagon2, passengerWagon1.getPreviousWagon());
+    }
+
+    @Test
+    /**
+     * Regarding grading, reverse is not necessary for a sufficient result.
+     */
+    public void T10_PartiallyReverseASequenceOfFour() {
+        passengerWagon1.attachTail(passengerWagon2);
+        passengerWagon2.attachTail(passengerWagon3);
+        passengerWagon3.attachTail(passengerWagon4);
+
+        // reverse part of the sequence
+        Wagon rev = passengerWagon3.reverseSequence();
+        assertEquals(2, rev.getSequenceLength(), "After reversing the middle wagon, the sequence length should remain the same");
+        assertEquals(passengerWagon4, rev);
+
+        assertEquals(passengerWagon3, rev.getNextWagon());
+        assertEquals(passengerWagon2, rev.getPreviousWagon());
+
+        assertFalse(passengerWagon3.hasNextWagon());
+        assertEquals(passengerWagon4, passengerWagon3.getPreviousWagon());
+
+        assertEquals(4, passengerWagon1.getSequenceLength());
+        assertFalse(passengerWagon1.hasPreviousWagon());
+        assertEquals(passengerWagon2, passengerWagon1.getNextWagon());
+
+        assertEquals(passengerWagon1, passengerWagon2.getPreviousWagon());
+        assertEquals(passengerWagon4, passengerWagon2.getNextWagon());
+    }
+
+    @Test
+    public void T11_SpliceShouldInsertASequenceBetweenTwoWagons() {
+        passengerWagon1.attachTail(passengerWagon4);
+        passengerWagon2.attachTail(passengerWagon3);
+
+        passengerWagon1.spliceTail(passengerWagon2, passengerWagon3);
+
+        assertEquals(4, passengerWagon1.getSequenceLength());
+        assertSame(passengerWagon2, passengerWagon1.getNextWagon());
+        assertSame(passengerWagon1, passengerWagon2.getPreviousWagon());
+        assertSame(passengerWagon4, passengerWagon3.getNextWagon());
+        assertSame(passengerWagon3, passengerWagon4.getPreviousWagon());
+
+        // splicing at the end of a sequence appends the sequence
+        passengerWagon4.spliceTail(freightWagon1, freightWagon1);
+        assertSame(freightWagon1, passengerWagon1.getLastWagonAttached());
+
+        assertThrows(IllegalStateException.class, () -> passengerWagon1.spliceTail(passengerWagon3, passengerWagon4));
+        assertThrows(IllegalStateException.class, () -> freightWagon2.spliceTail(passengerWagon1, passengerWagon3));
+    }
+
+    @Test
+    public void T12_KindShouldBeTaggedAtConstruction() {
+        Wagon dinerWagon = new Wagon(7001) {
+        };
+        assertEquals(Wagon.Kind.OTHER, dinerWagon.getKind());
+        assertEquals(Wagon.Kind.PASSENGER, passengerWagon1.getKind());
+        assertEquals(Wagon.Kind.FREIGHT, freightWagon1.getKind());
+        assertEquals(36, ((PassengerWagon)(Object)passengerWagon1).getNumberOfSeats());
+        assertEquals(50000, ((FreightWagon)(Object)freightWagon1).getMaxWeight());
+
+        passengerWagon1.attachTail(dinerWagon);
+        assertEquals(36, passengerWagon1.getSequenceNumberOfSeats());
+        assertEquals(0, passengerWagon1.getSequenceMaxWeight());
+    }
 }
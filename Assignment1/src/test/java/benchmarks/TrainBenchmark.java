@@ -0,0 +1,92 @@
+package benchmarks;
+
+import models.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the operations of Train on compositions of 10 to 1,000,000 wagons, with and without the position index.
+ * Operations that change the number of wagons are undone within the same benchmark method,
+ * such that every invocation works on a train of numberOfWagons wagons.
+ * Run with the gc profiler (see the benchmark profile in pom.xml) to report gc.alloc.rate.norm next to ops/s:
+ * mvn -Pbenchmark test-compile exec:exec -Dbenchmark=TrainBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrainBenchmark {
+
+    @Param({"10", "1000", "100000", "1000000"})
+    int numberOfWagons;
+
+    @Param({"false", "true"})
+    boolean indexedPositions;
+
+    Train train, otherTrain;
+    Wagon spareWagon;
+
+    @Setup(Level.Iteration)
+    public void setup() {
+        train = new Train(new Locomotive(1, numberOfWagons + 1), "Amsterdam", "Berlin", indexedPositions);
+        for (int id = 0; id < numberOfWagons; id++) {
+            train.attachToRear(new PassengerWagon(id, 40));
+        }
+        otherTrain = new Train(new Locomotive(2, numberOfWagons + 1), "Amsterdam", "Paris", indexedPositions);
+        spareWagon = new PassengerWagon(numberOfWagons, 40);
+    }
+
+    /**
+     * attaches numberOfWagons new wagons one by one to an empty train
+     */
+    @Benchmark
+    public Train attachToRear() {
+        Train train = new Train(new Locomotive(1, numberOfWagons), "Amsterdam", "Berlin", indexedPositions);
+        for (int id = 0; id < numberOfWagons; id++) {
+            train.attachToRear(new PassengerWagon(id, 40));
+        }
+        return train;
+    }
+
+    /**
+     * inserts the spare wagon in the middle and moves it out again into a new train
+     */
+    @Benchmark
+    public boolean insertAtPosition() {
+        return train.insertAtPosition(numberOfWagons / 2 + 1, spareWagon)
+                && train.moveOneWagon(numberOfWagons, new Train(new Locomotive(3, 1), "Amsterdam", "Yard"));
+    }
+
+    @Benchmark
+    public Wagon findWagonById() {
+        return train.findWagonById(numberOfWagons / 2);
+    }
+
+    @Benchmark
+    public Wagon findWagonAtPosition() {
+        return train.findWagonAtPosition(numberOfWagons / 2 + 1);
+    }
+
+    /**
+     * splits off the rear half of the train and attaches it back again
+     */
+    @Benchmark
+    public boolean splitAtPosition() {
+        return train.splitAtPosition(numberOfWagons / 2 + 1, otherTrain)
+                && otherTrain.splitAtPosition(1, train);
+    }
+
+    @Benchmark
+    public Train reverse() {
+        train.reverse();
+        return train;
+    }
+
+    @Benchmark
+    public int getTotalNumberOfSeats() {
+        return train.getTotalNumberOfSeats();
+    }
+}
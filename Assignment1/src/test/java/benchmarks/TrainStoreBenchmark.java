@@ -0,0 +1,87 @@
+package benchmarks;
+
+import models.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the object graph representation of Train and Wagon with the parallel arrays of TrainStore.
+ * Run with the gc profiler (see the benchmark profile in pom.xml):
+ * gc.alloc.rate.norm of the build benchmarks reports the heap needed per composition of n wagons.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TrainStoreBenchmark {
+
+    @Param({"1000", "100000", "1000000"})
+    int numberOfWagons;
+
+    Train train, otherTrain;
+    TrainStore store;
+    int storeTrain, otherStoreTrain;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        train = buildTrain();
+        otherTrain = new Train(new Locomotive(2, numberOfWagons), "Amsterdam", "Paris");
+        store = buildTrainStore();
+        storeTrain = 0;
+        otherStoreTrain = store.addTrain(new Locomotive(2, numberOfWagons), "Amsterdam", "Paris");
+    }
+
+    @Benchmark
+    public Train buildTrain() {
+        Train train = new Train(new Locomotive(1, numberOfWagons), "Amsterdam", "Berlin");
+        for (int id = 0; id < numberOfWagons; id++) {
+            train.attachToRear(new PassengerWagon(id, 40));
+        }
+        return train;
+    }
+
+    @Benchmark
+    public TrainStore buildTrainStore() {
+        TrainStore store = new TrainStore(numberOfWagons);
+        int train = store.addTrain(new Locomotive(1, numberOfWagons), "Amsterdam", "Berlin");
+        for (int id = 0; id < numberOfWagons; id++) {
+            store.attachToRear(train, store.addPassengerWagon(id, 40));
+        }
+        return store;
+    }
+
+    @Benchmark
+    public void reverseTrain() {
+        train.reverse();
+    }
+
+    @Benchmark
+    public void reverseTrainStore() {
+        store.reverse(storeTrain);
+    }
+
+    @Benchmark
+    public Wagon findMiddleWagonOfTrain() {
+        return train.findWagonAtPosition(numberOfWagons / 2);
+    }
+
+    @Benchmark
+    public int findMiddleWagonOfTrainStore() {
+        return store.findWagonAtPosition(storeTrain, numberOfWagons / 2);
+    }
+
+    @Benchmark
+    public boolean moveOneWagonOfTrain() {
+        return train.moveOneWagon(numberOfWagons / 2, otherTrain)
+                && otherTrain.moveOneWagon(numberOfWagons / 2, train);
+    }
+
+    @Benchmark
+    public boolean moveOneWagonOfTrainStore() {
+        return store.moveOneWagon(storeTrain, numberOfWagons / 2, otherStoreTrain)
+                && store.moveOneWagon(otherStoreTrain, numberOfWagons / 2, storeTrain);
+    }
+}
@@ -0,0 +1,80 @@
+package benchmarks;
+
+import models.*;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the aggregation of seats and maximum weight along a sequence of wagons
+ * by instanceof dispatch on the wagon class (as Train did before wagons were tagged with their kind)
+ * with the branch free aggregation of the per-kind capacity fields.
+ * A homogeneous sequence holds passenger wagons only, a mixed sequence holds passenger and freight wagons
+ * in random order, which makes the instanceof branches unpredictable.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WagonKindBenchmark {
+
+    @Param({"1000", "100000"})
+    int numberOfWagons;
+
+    @Param({"homogeneous", "mixed"})
+    String composition;
+
+    Wagon head;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(1);
+        Wagon tail = null;
+        for (int id = 0; id < numberOfWagons; id++) {
+            Wagon wagon = composition.equals("mixed") && random.nextBoolean()
+                    ? new FreightWagon(id, 1000 + random.nextInt(1000))
+                    : new PassengerWagon(id, 20 + random.nextInt(40));
+            if (tail == null) {
+                head = wagon;
+            } else {
+                tail.attachTail(wagon);
+            }
+            tail = wagon;
+        }
+    }
+
+    @Benchmark
+    public int seatsByInstanceof() {
+        int seats = 0;
+        for (Wagon wagon = head; wagon != null; wagon = wagon.getNextWagon()) {
+            if (wagon instanceof PassengerWagon) {
+                seats += ((PassengerWagon) wagon).getNumberOfSeats();
+            }
+        }
+        return seats;
+    }
+
+    @Benchmark
+    public int seatsByKind() {
+        return head.getSequenceNumberOfSeats();
+    }
+
+    @Benchmark
+    public int maxWeightByInstanceof() {
+        int maxWeight = 0;
+        for (Wagon wagon = head; wagon != null; wagon = wagon.getNextWagon()) {
+            if (wagon instanceof FreightWagon) {
+                maxWeight += ((FreightWagon) wagon).getMaxWeight();
+            }
+        }
+        return maxWeight;
+    }
+
+    @Benchmark
+    public int maxWeightByKind() {
+        return head.getSequenceMaxWeight();
+    }
+}
@@ -2,6 +2,7 @@ package models;
 
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.function.Function;
 
 import static models.Car.CarType;
 import static models.Car.CarType.Coach;
@@ -37,25 +38,45 @@ public class Detection {
      * or null if the textLine is corrupt or incomplete
      */
     public static Detection fromLine(String textLine, List<Car> cars) {
-        Detection newDetection = null;
-        String[] fields = textLine.split(",");
-        if (fields.length >= 3) {
-            String licensePlate = fields[0].trim();
-            String city = fields[1].trim();
-            LocalDateTime dateTime = LocalDateTime.parse(fields[2].trim());
+        return fromLine(textLine, licensePlate -> {
             int index = -1;
-            for (int i = 0; i < cars.size(); i++) {
-                if (cars.get(i).getLicensePlate().equals(licensePlate)) {
-                    index = i;
-                    break;
+            if (cars instanceof OrderedList<Car> orderedCars && orderedCars.getSortOrder() != null) {
+                // binary search on the sorted section, the sort order shall only consider the licensePlate
+                index = orderedCars.indexOfByBinarySearch(new Car(licensePlate));
+            } else {
+                for (int i = 0; i < cars.size(); i++) {
+                    if (cars.get(i).getLicensePlate().equals(licensePlate)) {
+                        index = i;
+                        break;
+                    }
                 }
             }
             if (index == -1) {
                 Car newCar = new Car(licensePlate);
                 cars.add(newCar);
-                index = cars.size() - 1;
+                return newCar;
             }
-            newDetection = new Detection(cars.get(index), city, dateTime);
+            return cars.get(index);
+        });
+    }
+
+    /**
+     * Parses detection information from a line of text, like fromLine(textLine, cars),
+     * but retrieves the car of the licensePlate from an index of the known cars
+     * @param textLine
+     * @param carFinder a function that finds the known car with a given licensePlate,
+     *                  or registers and returns a new Car if no such car is known yet
+     * @return a new Detection instance with the provided information
+     * or null if the textLine is corrupt or incomplete
+     */
+    public static Detection fromLine(String textLine, Function<String, Car> carFinder) {
+        Detection newDetection = null;
+        String[] fields = textLine.split(",");
+        if (fields.length >= 3) {
+            String licensePlate = fields[0].trim();
+            String city = fields[1].trim();
+            LocalDateTime dateTime = LocalDateTime.parse(fields[2].trim());
+            newDetection = new Detection(carFinder.apply(licensePlate), city, dateTime);
         }
         return newDetection;
     }
@@ -69,13 +90,20 @@ public class Detection {
      *          null if no offence was found.
      */
     public Violation validatePurple() {
-        // Validate that diesel trucks and diesel coaches have an emission category of 6 or above
-        if ((car.getCarType() == Truck || car.getCarType() == Coach)
-                && car.getEmissionCategory() < 6)
+        if (violatesPurple(car))
             return new Violation(car, city);
         return null;
     }
 
+    /**
+     * @return whether any detection of the car is an offence against the purple zone rule
+     */
+    public static boolean violatesPurple(Car car) {
+        // Validate that diesel trucks and diesel coaches have an emission category of 6 or above
+        return (car.getCarType() == Truck || car.getCarType() == Coach)
+                && car.getEmissionCategory() < 6;
+    }
+
 
     public Car getCar() {
         return car;
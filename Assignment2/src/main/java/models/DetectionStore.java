@@ -0,0 +1,268 @@
+package models;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * A compact, columnar store of detections. Instead of a Detection object per detection, every detection occupies
+ * an int car id, an int city id and a long epoch second in three primitive arrays (16 bytes per detection).
+ * The cars and the names of the cities are dictionary encoded: they are stored once, and identified by their
+ * position in the dictionary. The dateTimes are taken as they are, without any time zone conversion.
+ *
+ * The purple criteria and the group-by queries run as tight loops over the columns:
+ * the criteria are evaluated once per car instead of once per detection, and the offences are counted in
+ * primitive arrays indexed by car id or city id.
+ */
+public class DetectionStore {
+    private static final int INITIAL_CAPACITY = 16;
+
+    private int[] carIds = new int[INITIAL_CAPACITY];
+    private int[] cityIds = new int[INITIAL_CAPACITY];
+    private long[] epochSeconds = new long[INITIAL_CAPACITY];
+    private int size;
+
+    private final List<Car> cars = new ArrayList<>();              // the car of every car id
+    private final Map<Car, Integer> carIdsByCar = new HashMap<>();
+    private final List<String> cities = new ArrayList<>();         // the city of every city id
+    private final Map<String, Integer> cityIdsByCity = new HashMap<>();
+
+    /**
+     * appends the detection to the store, in amortized O(1) time
+     * @param detection
+     */
+    public void add(Detection detection) {
+        add(detection.getCar(), detection.getCity(), detection.getDateTime());
+    }
+
+    /**
+     * appends a detection of the car in the city at the dateTime to the store, in amortized O(1) time
+     */
+    public void add(Car car, String city, LocalDateTime dateTime) {
+        if (size == carIds.length) {
+            int capacity = 2 * size;
+            carIds = Arrays.copyOf(carIds, capacity);
+            cityIds = Arrays.copyOf(cityIds, capacity);
+            epochSeconds = Arrays.copyOf(epochSeconds, capacity);
+        }
+        carIds[size] = carIdsByCar.computeIfAbsent(car, c -> {
+            cars.add(c);
+            return cars.size() - 1;
+        });
+        cityIds[size] = cityIdsByCity.computeIfAbsent(city, c -> {
+            cities.add(c);
+            return cities.size() - 1;
+        });
+        epochSeconds[size] = dateTime.toEpochSecond(ZoneOffset.UTC);
+        size++;
+    }
+
+    /**
+     * parses a detection from the current line of the reader, like TrafficFileReader.readDetection,
+     * and appends its fields to the store without instantiating a Detection
+     * @param reader
+     * @param carFinder a function that finds the known car with a given licensePlate,
+     *                  or registers and returns a new Car if no such car is known yet
+     * @return whether a detection has been appended, false if the line is incomplete
+     */
+    public boolean add(TrafficFileReader reader, Function<String, Car> carFinder) {
+        if (!reader.nextField()) return false;
+        String licensePlate = reader.stringField();
+        if (!reader.nextField()) return false;
+        String city = reader.cityField();
+        if (!reader.nextField()) return false;
+        add(carFinder.apply(licensePlate), city, reader.dateTimeField());
+        return true;
+    }
+
+    /**
+     * parses a detection from a line of text, like Detection.fromLine,
+     * and appends its fields to the store without instantiating a Detection
+     * @param textLine
+     * @param carFinder a function that finds the known car with a given licensePlate,
+     *                  or registers and returns a new Car if no such car is known yet
+     * @return whether a detection has been appended, false if the textLine is incomplete
+     */
+    public boolean add(String textLine, Function<String, Car> carFinder) {
+        String[] fields = textLine.split(",");
+        if (fields.length < 3) {
+            return false;
+        }
+        add(carFinder.apply(fields[0].trim()), fields[1].trim(), LocalDateTime.parse(fields[2].trim()));
+        return true;
+    }
+
+    public void addAll(Collection<Detection> detections) {
+        for (Detection detection : detections) {
+            add(detection);
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int getNumberOfCars() {
+        return cars.size();
+    }
+
+    public int getNumberOfCities() {
+        return cities.size();
+    }
+
+    /**
+     * @return a new Detection instance with the information of the detection at the index
+     */
+    public Detection get(int index) {
+        Objects.checkIndex(index, size);
+        return new Detection(cars.get(carIds[index]), cities.get(cityIds[index]),
+                LocalDateTime.ofEpochSecond(epochSeconds[index], 0, ZoneOffset.UTC));
+    }
+
+    /**
+     * evaluates the purple criteria once per car
+     * @return for every car id whether detections of the car are offences against the purple criteria
+     */
+    private boolean[] purpleOffenders() {
+        boolean[] offenders = new boolean[cars.size()];
+        for (int carId = 0; carId < offenders.length; carId++) {
+            offenders[carId] = Detection.violatesPurple(cars.get(carId));
+        }
+        return offenders;
+    }
+
+    /**
+     * @return the total number of offences against the purple criteria among all detections
+     */
+    public int countPurpleOffences() {
+        boolean[] offenders = purpleOffenders();
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (offenders[carIds[i]]) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @return the offences against the purple criteria, accumulated per car and per city,
+     *          in a new list ordered by licensePlate and city
+     */
+    public OrderedList<Violation> validatePurple() {
+        boolean[] offenders = purpleOffenders();
+        // encode every offence by car and city in a single long, such that equal offences end up next to each other
+        long[] offences = new long[size];
+        int numberOfOffences = 0;
+        int numberOfCities = cities.size();
+        for (int i = 0; i < size; i++) {
+            if (offenders[carIds[i]]) {
+                offences[numberOfOffences++] = (long) carIds[i] * numberOfCities + cityIds[i];
+            }
+        }
+        Arrays.sort(offences, 0, numberOfOffences);
+
+        OrderedList<Violation> violations = new OrderedArrayList<>(Violation::compareByLicensePlateAndCity);
+        for (int i = 0; i < numberOfOffences; ) {
+            int j = i + 1;
+            while (j < numberOfOffences && offences[j] == offences[i]) {
+                j++;
+            }
+            Violation violation = new Violation(cars.get((int) (offences[i] / numberOfCities)),
+                    cities.get((int) (offences[i] % numberOfCities)));
+            violation.setOffencesCount(j - i);
+            violations.add(violation);
+            i = j;
+        }
+        violations.sort();
+        return violations;
+    }
+
+    /**
+     * Returns all offences against the purple criteria grouped by car, like TrafficTracker.groupViolationsByCarType,
+     * retaining the city of a group only if all of its offences happened in that city
+     * @return all violations grouped by car in descending order of offence count, and by licensePlate
+     */
+    public List<Violation> groupViolationsByCar() {
+        boolean[] offenders = purpleOffenders();
+        int[] counts = new int[cars.size()];
+        int[] soleCityIds = new int[cars.size()];      // the city id of all offences of a car, or -1 if they differ
+        for (int i = 0; i < size; i++) {
+            int carId = carIds[i];
+            if (offenders[carId]) {
+                if (counts[carId]++ == 0) {
+                    soleCityIds[carId] = cityIds[i];
+                } else if (soleCityIds[carId] != cityIds[i]) {
+                    soleCityIds[carId] = -1;
+                }
+            }
+        }
+        List<Violation> groupedViolations = new ArrayList<>();
+        for (int carId = 0; carId < counts.length; carId++) {
+            if (counts[carId] > 0) {
+                Violation violation = new Violation(cars.get(carId),
+                        soleCityIds[carId] < 0 ? null : cities.get(soleCityIds[carId]));
+                violation.setOffencesCount(counts[carId]);
+                groupedViolations.add(violation);
+            }
+        }
+        groupedViolations.sort(Comparator.comparing(Violation::getOffencesCount).reversed()
+                .thenComparing(Violation::getCar));
+        return groupedViolations;
+    }
+
+    /**
+     * Returns all offences against the purple criteria grouped by city, like TrafficTracker.groupViolationsByCityType,
+     * retaining the car of a group only if all of its offences were committed by that car
+     * @return all violations grouped by city in descending order of offence count, and by city
+     */
+    public List<Violation> groupViolationsByCity() {
+        boolean[] offenders = purpleOffenders();
+        int[] counts = new int[cities.size()];
+        int[] soleCarIds = new int[cities.size()];     // the car id of all offences in a city, or -1 if they differ
+        for (int i = 0; i < size; i++) {
+            int carId = carIds[i];
+            if (offenders[carId]) {
+                int cityId = cityIds[i];
+                if (counts[cityId]++ == 0) {
+                    soleCarIds[cityId] = carId;
+                } else if (soleCarIds[cityId] != carId) {
+                    soleCarIds[cityId] = -1;
+                }
+            }
+        }
+        List<Violation> groupedViolations = new ArrayList<>();
+        for (int cityId = 0; cityId < counts.length; cityId++) {
+            if (counts[cityId] > 0) {
+                Violation violation = new Violation(soleCarIds[cityId] < 0 ? null : cars.get(soleCarIds[cityId]),
+                        cities.get(cityId));
+                violation.setOffencesCount(counts[cityId]);
+                groupedViolations.add(violation);
+            }
+        }
+        groupedViolations.sort(Comparator.comparing(Violation::getOffencesCount).reversed()
+                .thenComparing(Violation::getCity));
+        return groupedViolations;
+    }
+
+    /**
+     * @return the number of detections of the car in the city between from (inclusive) and to (exclusive)
+     */
+    public int countDetections(Car car, String city, LocalDateTime from, LocalDateTime to) {
+        Integer carId = carIdsByCar.get(car);
+        Integer cityId = cityIdsByCity.get(city);
+        if (carId == null || cityId == null) {
+            return 0;
+        }
+        long fromSecond = from.toEpochSecond(ZoneOffset.UTC);
+        long toSecond = to.toEpochSecond(ZoneOffset.UTC);
+        int count = 0;
+        for (int i = 0; i < size; i++) {
+            if (carIds[i] == carId && cityIds[i] == cityId && epochSeconds[i] >= fromSecond && epochSeconds[i] < toSecond) {
+                count++;
+            }
+        }
+        return count;
+    }
+}
@@ -1,11 +1,17 @@
 package models;
 
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Comparator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 import java.util.function.BinaryOperator;
 import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
 
 public class OrderedArrayList<E> extends ArrayList<E> implements OrderedList<E> {
+    // the number of items below which a section is aggregated without further splitting
+    private static final int SEQUENTIAL_THRESHOLD = 10_000;
 
     protected Comparator<? super E> sortOrder;   // the comparator that has been used with the latest sort
     protected int nSorted;                       // the number of sorted items in the first section of the list
@@ -13,6 +19,8 @@ public class OrderedArrayList<E> extends ArrayList<E> implements OrderedList<E>
     //      all items at index positions 0 <= index < nSorted have been ordered by the given sortOrder comparator
     //      other items at index position nSorted <= index < size() can be in any order amongst themselves
     //              and also relative to the sorted section
+    protected boolean orderedInsertion;          // whether add and addAll insert items at their position in the sortOrder
+    //      in ordered insertion mode nSorted == size(), such that the complete list is binary searchable at all times
 
     public OrderedArrayList() {
         this(null);
@@ -28,6 +36,25 @@ public class OrderedArrayList<E> extends ArrayList<E> implements OrderedList<E>
         return this.sortOrder;
     }
 
+    public boolean isOrderedInsertion() {
+        return this.orderedInsertion;
+    }
+
+    /**
+     * switches the list to or from ordered insertion mode
+     * in ordered insertion mode add(item) inserts the item at its binary searched position in the sortOrder,
+     * and addAll(items) merges the sorted items into the list in one pass,
+     * instead of appending the items to the unsorted section.
+     * the mode has no effect on a list without sortOrder.
+     * @param orderedInsertion
+     */
+    public void setOrderedInsertion(boolean orderedInsertion) {
+        this.orderedInsertion = orderedInsertion;
+        if (orderedInsertion) {
+            this.sort();
+        }
+    }
+
     @Override
     public void clear() {
         super.clear();
@@ -41,6 +68,74 @@ public class OrderedArrayList<E> extends ArrayList<E> implements OrderedList<E>
         this.nSorted = this.size();
     }
 
+    @Override
+    public boolean add(E element) {
+        if (this.orderedInsertion && this.sortOrder != null) {
+            return this.addInOrder(element);
+        }
+        return super.add(element);
+    }
+
+    @Override
+    public boolean addAll(Collection<? extends E> items) {
+        if (this.orderedInsertion && this.sortOrder != null) {
+            return this.addAllInOrder(items);
+        }
+        return super.addAll(items);
+    }
+
+    /**
+     * inserts the item after all items that are not ordered after it, by a binary search in O(log n + n) time,
+     * where the linear term only involves moving the items behind the insertion point by one position.
+     * the unsorted section is sorted first, such that the complete list remains sorted.
+     * @param item
+     * @return true
+     */
+    public boolean addInOrder(E item) {
+        this.sort();
+        int index = this.insertionPoint(item);
+        super.add(index, item);
+        this.nSorted = this.size();
+        return true;
+    }
+
+    /**
+     * appends the items and sorts them into the list in a single sort, in O(n + m log m) time for m items.
+     * The sort (TimSort) finds the sorted section as one run, sorts the appended items and merges them into that run
+     * in place, galloping over the stretches of the list between successive items by binary search
+     * and moving them by bulk array copies.
+     * The unsorted section is sorted first, such that the complete list remains sorted.
+     * Items that are equal by the sortOrder keep their order and follow the equal items already in the list.
+     * @param items
+     * @return whether the list has changed
+     */
+    public boolean addAllInOrder(Collection<? extends E> items) {
+        if (items.isEmpty()) {
+            return false;
+        }
+        this.sort();
+        super.addAll(items);
+        this.sort(this.sortOrder);
+        return true;
+    }
+
+    /**
+     * @return the index of the first item in the sorted section that is ordered after the item
+     */
+    private int insertionPoint(E item) {
+        int from = 0;
+        int to = this.nSorted;
+        while (from < to) {
+            int mid = (from + to) >>> 1;
+            if (this.sortOrder.compare(item, this.get(mid)) < 0) {
+                to = mid;
+            } else {
+                from = mid + 1;
+            }
+        }
+        return from;
+    }
+
     @Override
     public void add(int index, E element) {
         super.add(index, element);
@@ -211,15 +306,79 @@ public class OrderedArrayList<E> extends ArrayList<E> implements OrderedList<E>
     @Override
     public double aggregate(Function<E, Double> mapper) {
         double sum = 0.0;
-        int totalNumber = 0;
         // Loop over all items and use the mapper
         // to calculate and accumulate the contribution of each item
         for (E item : this) {
             sum += mapper.apply(item);
-            totalNumber++;
         }
-        System.out.println("Total number of items: " + totalNumber);
         return sum;
     }
 
+    /**
+     * calculates the total sum of contributions of all items in the list, like aggregate,
+     * but with a mapper that calculates primitive contributions, such that nothing is allocated
+     * @param mapper a function that calculates the contribution of a single item
+     * @return the total sum of all contributions
+     */
+    @Override
+    public double aggregateAsDouble(ToDoubleFunction<? super E> mapper) {
+        return this.aggregateAsDouble(mapper, 0, this.size());
+    }
+
+    private double aggregateAsDouble(ToDoubleFunction<? super E> mapper, int from, int to) {
+        double sum = 0.0;
+        for (int i = from; i < to; i++) {
+            sum += mapper.applyAsDouble(this.get(i));
+        }
+        return sum;
+    }
+
+    /**
+     * calculates the total sum of contributions of all items in the list, like aggregateAsDouble,
+     * by a fork-join reduction over sections of the list in the common pool.
+     * The sections do not depend on the number of threads, such that the result is reproducible.
+     * The list shall not change during the aggregation and the mapper shall be safe for concurrent use.
+     * @param mapper a function that calculates the contribution of a single item
+     * @return the total sum of all contributions
+     */
+    @Override
+    public double aggregateInParallel(ToDoubleFunction<? super E> mapper) {
+        if (this.size() <= SEQUENTIAL_THRESHOLD) {
+            return this.aggregateAsDouble(mapper);
+        }
+        AggregationTask<E> task = new AggregationTask<>(this, mapper, 0, this.size());
+        ForkJoinPool.commonPool().invoke(task);
+        return task.sum;
+    }
+
+    private static class AggregationTask<E> extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final OrderedArrayList<E> list;
+        private final ToDoubleFunction<? super E> mapper;
+        private final int from, to;
+        private double sum;     // the primitive result, to avoid boxing of the partial sums
+
+        AggregationTask(OrderedArrayList<E> list, ToDoubleFunction<? super E> mapper, int from, int to) {
+            this.list = list;
+            this.mapper = mapper;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                sum = list.aggregateAsDouble(mapper, from, to);
+                return;
+            }
+            int middle = (from + to) >>> 1;
+            AggregationTask<E> front = new AggregationTask<>(list, mapper, from, middle);
+            AggregationTask<E> rear = new AggregationTask<>(list, mapper, middle, to);
+            front.fork();
+            rear.compute();
+            front.join();
+            sum = front.sum + rear.sum;
+        }
+    }
 }
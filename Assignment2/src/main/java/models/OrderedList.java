@@ -4,6 +4,7 @@ import java.util.Comparator;
 import java.util.List;
 import java.util.function.BinaryOperator;
 import java.util.function.Function;
+import java.util.function.ToDoubleFunction;
 
 public interface OrderedList<E> extends List<E> {
     Comparator<? super E> getSortOrder();
@@ -11,4 +12,6 @@ public interface OrderedList<E> extends List<E> {
     int indexOfByBinarySearch(E searchItem);
     boolean merge(E item, BinaryOperator<E> merger);
     double aggregate(Function<E,Double> mapper);
+    double aggregateAsDouble(ToDoubleFunction<? super E> mapper);
+    double aggregateInParallel(ToDoubleFunction<? super E> mapper);
 }
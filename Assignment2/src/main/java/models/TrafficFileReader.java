@@ -0,0 +1,393 @@
+package models;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.Function;
+
+/**
+ * Reads the comma-separated text files of the vault line by line from a memory-mapped file,
+ * and parses the fields of each line directly from the bytes of the file:
+ * numbers, enum constants and ISO dates are decoded in place, without instantiating a String per line or per field.
+ * Only license plates become new Strings, city names are shared by all detections of the same city in the file.
+ * Like String.trim, leading and trailing whitespaces of every field are ignored.
+ * The file is expected to be encoded in UTF-8 (or ASCII) and shall be smaller than 2GB.
+ */
+public class TrafficFileReader {
+    private static final Car.CarType[] CAR_TYPES = Car.CarType.values();
+    private static final Car.FuelType[] FUEL_TYPES = Car.FuelType.values();
+
+    private final ByteBuffer buffer;
+    private int nextLine;           // the start of the next line
+    private int lineStart;          // the start of the current line
+    private int lineEnd;            // the end of the current line (exclusive, without line terminator)
+    private int position;           // the start of the next field of the current line
+    private int fieldStart;         // the start of the current field, without leading whitespace
+    private int fieldEnd;           // the end of the current field (exclusive, without trailing whitespace)
+
+    private byte[] scratch = new byte[64];
+
+    // dictionary of city names found in the file, open addressing on the hash of the name's bytes
+    private byte[][] cityKeys = new byte[16][];
+    private String[] cityNames = new String[16];
+    private int numberOfCities;
+
+    public TrafficFileReader(ByteBuffer buffer) {
+        this.buffer = buffer;
+        this.nextLine = buffer.position();
+        this.lineEnd = -1;
+        this.position = 0;
+    }
+
+    /**
+     * maps the file into memory for reading
+     * @param file
+     * @return a reader positioned before the first line of the file
+     */
+    public static TrafficFileReader open(File file) {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            return new TrafficFileReader(channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Could not read file on path: " + file.getPath(), e);
+        }
+    }
+
+    /**
+     * imports a collection of items from a text file, like TrafficTracker.importItemsFromFile,
+     * but lets the converter parse the fields of each line from this reader
+     * @param items         the list to which successfully converted items shall be added
+     * @param file          the source text file
+     * @param converter     a function that can convert the current line of the reader into a new item instance,
+     *                      or returns null if the line is corrupt
+     * @param <E>           the (generic) type of each item
+     * @return the number of lines in the file
+     */
+    public static <E> int importItemsFromFile(List<E> items, File file, Function<TrafficFileReader, E> converter) {
+        int numberOfLines = 0;
+        TrafficFileReader reader = open(file);
+        while (reader.nextLine()) {
+            numberOfLines++;
+            E item = reader.isBlankLine() ? null : converter.apply(reader);
+            if (item != null) {
+                items.add(item);
+            }
+        }
+        return numberOfLines;
+    }
+
+    /**
+     * advances to the next line, which may be terminated by \n, \r\n or \r
+     * @return whether there was another line
+     */
+    public boolean nextLine() {
+        int limit = buffer.limit();
+        if (nextLine >= limit) {
+            return false;
+        }
+        lineStart = nextLine;
+        int end = lineStart;
+        while (end < limit && buffer.get(end) != '\n' && buffer.get(end) != '\r') {
+            end++;
+        }
+        lineEnd = end;
+        if (end < limit && buffer.get(end) == '\r') {
+            end++;
+        }
+        if (end < limit && buffer.get(end) == '\n') {
+            end++;
+        }
+        nextLine = end;
+        position = lineStart;
+        return true;
+    }
+
+    /**
+     * advances to the next comma-separated field of the current line
+     * @return whether the current line had another field
+     */
+    public boolean nextField() {
+        if (position > lineEnd) {
+            return false;
+        }
+        int end = position;
+        while (end < lineEnd && buffer.get(end) != ',') {
+            end++;
+        }
+        fieldStart = position;
+        fieldEnd = end;
+        position = end + 1;
+        while (fieldStart < fieldEnd && isWhitespace(buffer.get(fieldStart))) {
+            fieldStart++;
+        }
+        while (fieldEnd > fieldStart && isWhitespace(buffer.get(fieldEnd - 1))) {
+            fieldEnd--;
+        }
+        return true;
+    }
+
+    private static boolean isWhitespace(byte b) {
+        return (b & 0xff) <= ' ';
+    }
+
+    /**
+     * @return whether the current line is empty or only holds whitespace
+     */
+    public boolean isBlankLine() {
+        for (int i = lineStart; i < lineEnd; i++) {
+            if (!isWhitespace(buffer.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the current line as text, e.g. for error messages
+     */
+    public String line() {
+        return decode(lineStart, lineEnd);
+    }
+
+    /**
+     * @return the text of the current field
+     */
+    public String stringField() {
+        return decode(fieldStart, fieldEnd);
+    }
+
+    private String decode(int from, int to) {
+        int length = to - from;
+        if (scratch.length < length) {
+            scratch = new byte[Math.max(length, 2 * scratch.length)];
+        }
+        buffer.get(from, scratch, 0, length);
+        return new String(scratch, 0, length, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return the name of the city in the current field, the same String instance for every occurrence in the file
+     */
+    public String cityField() {
+        int length = fieldEnd - fieldStart;
+        int hash = 1;
+        for (int i = fieldStart; i < fieldEnd; i++) {
+            hash = 31 * hash + buffer.get(i);
+        }
+        int mask = cityKeys.length - 1;
+        for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+            byte[] key = cityKeys[slot];
+            if (key == null) {
+                String city = stringField();
+                cityKeys[slot] = Arrays.copyOf(scratch, length);
+                cityNames[slot] = city;
+                if (++numberOfCities > cityKeys.length / 2) {
+                    growCities();
+                }
+                return city;
+            }
+            if (key.length == length && fieldEquals(key)) {
+                return cityNames[slot];
+            }
+        }
+    }
+
+    private static int mix(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    private boolean fieldEquals(byte[] key) {
+        for (int i = 0; i < key.length; i++) {
+            if (buffer.get(fieldStart + i) != key[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void growCities() {
+        byte[][] oldKeys = cityKeys;
+        String[] oldNames = cityNames;
+        cityKeys = new byte[2 * oldKeys.length][];
+        cityNames = new String[2 * oldNames.length];
+        int mask = cityKeys.length - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int hash = 1;
+                for (byte b : oldKeys[i]) {
+                    hash = 31 * hash + b;
+                }
+                int slot = mix(hash) & mask;
+                while (cityKeys[slot] != null) {
+                    slot = (slot + 1) & mask;
+                }
+                cityKeys[slot] = oldKeys[i];
+                cityNames[slot] = oldNames[i];
+            }
+        }
+    }
+
+    /**
+     * parses the current field like Integer.parseInt
+     * @throws NumberFormatException if the field is not a decimal int
+     */
+    public int intField() {
+        int i = fieldStart;
+        boolean negative = false;
+        if (i < fieldEnd && (buffer.get(i) == '-' || buffer.get(i) == '+')) {
+            negative = buffer.get(i) == '-';
+            i++;
+        }
+        if (i == fieldEnd) {
+            throw new NumberFormatException("For input string: \"" + stringField() + "\"");
+        }
+        // accumulate negatively to cover Integer.MIN_VALUE
+        int result = 0;
+        for (; i < fieldEnd; i++) {
+            int digit = buffer.get(i) - '0';
+            if (digit < 0 || digit > 9 || result < (Integer.MIN_VALUE + digit) / 10) {
+                throw new NumberFormatException("For input string: \"" + stringField() + "\"");
+            }
+            result = 10 * result - digit;
+        }
+        if (!negative && result == Integer.MIN_VALUE) {
+            throw new NumberFormatException("For input string: \"" + stringField() + "\"");
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * parses the current field like Enum.valueOf
+     * @param constants all constants of the enum type
+     * @throws IllegalArgumentException if the field does not match the name of any of the constants
+     */
+    public <E extends Enum<E>> E enumField(E[] constants) {
+        int length = fieldEnd - fieldStart;
+        for (E constant : constants) {
+            String name = constant.name();
+            if (name.length() == length && fieldMatches(name)) {
+                return constant;
+            }
+        }
+        throw new IllegalArgumentException("No enum constant " +
+                constants[0].getDeclaringClass().getCanonicalName() + "." + stringField());
+    }
+
+    private boolean fieldMatches(String name) {
+        for (int i = 0; i < name.length(); i++) {
+            if (buffer.get(fieldStart + i) != name.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * parses the current field like LocalDate.parse, with a fast path for the format yyyy-MM-dd
+     */
+    public LocalDate dateField() {
+        if (fieldEnd - fieldStart == 10 && isDate(fieldStart)) {
+            try {
+                return LocalDate.of(digits(fieldStart, 4), digits(fieldStart + 5, 2), digits(fieldStart + 8, 2));
+            } catch (DateTimeException e) {
+                // out of range values, let the parser report them
+            }
+        }
+        return LocalDate.parse(stringField());
+    }
+
+    /**
+     * parses the current field like LocalDateTime.parse, with a fast path for the formats
+     * yyyy-MM-ddTHH:mm and yyyy-MM-ddTHH:mm:ss
+     */
+    public LocalDateTime dateTimeField() {
+        int length = fieldEnd - fieldStart;
+        int from = fieldStart;
+        if ((length == 16 || length == 19) && isDate(from) && buffer.get(from + 10) == 'T'
+                && isDigits(from + 11, 2) && buffer.get(from + 13) == ':' && isDigits(from + 14, 2)
+                && (length == 16 || buffer.get(from + 16) == ':' && isDigits(from + 17, 2))) {
+            try {
+                return LocalDateTime.of(digits(from, 4), digits(from + 5, 2), digits(from + 8, 2),
+                        digits(from + 11, 2), digits(from + 14, 2), length == 16 ? 0 : digits(from + 17, 2));
+            } catch (DateTimeException e) {
+                // out of range values, let the parser report them
+            }
+        }
+        return LocalDateTime.parse(stringField());
+    }
+
+    private boolean isDate(int from) {
+        return isDigits(from, 4) && buffer.get(from + 4) == '-' && isDigits(from + 5, 2)
+                && buffer.get(from + 7) == '-' && isDigits(from + 8, 2);
+    }
+
+    private boolean isDigits(int from, int count) {
+        for (int i = from; i < from + count; i++) {
+            byte b = buffer.get(i);
+            if (b < '0' || b > '9') {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int digits(int from, int count) {
+        int value = 0;
+        for (int i = from; i < from + count; i++) {
+            value = 10 * value + buffer.get(i) - '0';
+        }
+        return value;
+    }
+
+    /**
+     * parses car information from the current line, like Car.fromLine
+     * with format: licensePlate, emissionCategory, carType, fuelType, dateOfAdmission
+     * @return  a new Car instance with the provided information
+     *          or null if the line is corrupt, incomplete or empty
+     */
+    public Car readCar() {
+        try {
+            if (!nextField()) return null;
+            String licensePlate = stringField();
+            if (!nextField()) return null;
+            int emissionCategory = intField();
+            if (!nextField()) return null;
+            Car.CarType carType = enumField(CAR_TYPES);
+            if (!nextField()) return null;
+            Car.FuelType fuelType = enumField(FUEL_TYPES);
+            if (!nextField()) return null;
+            return new Car(licensePlate, emissionCategory, carType, fuelType, dateField());
+        } catch (Exception e) {
+            // any of the field parsers could throw an exception on a format mismatch
+            System.out.printf("Could not parse Car specification in text line '%s'\n", line());
+            System.out.println(e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * parses detection information from the current line, like Detection.fromLine
+     * with format: licensePlate, city, dateTime
+     * @param carFinder a function that finds the known car with a given licensePlate,
+     *                  or registers and returns a new Car if no such car is known yet
+     * @return a new Detection instance with the provided information
+     *          or null if the line is incomplete
+     */
+    public Detection readDetection(Function<String, Car> carFinder) {
+        if (!nextField()) return null;
+        String licensePlate = stringField();
+        if (!nextField()) return null;
+        String city = cityField();
+        if (!nextField()) return null;
+        LocalDateTime dateTime = dateTimeField();
+        return new Detection(carFinder.apply(licensePlate), city, dateTime);
+    }
+}
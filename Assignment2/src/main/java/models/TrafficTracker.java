@@ -5,6 +5,7 @@ import java.io.FileNotFoundException;
 import java.net.URISyntaxException;
 import java.net.URL;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.function.Function;
 
 
@@ -14,13 +15,34 @@ public class TrafficTracker {
 
     private OrderedList<Car> cars;// the reference list of all known Cars registered by the RDW
 
-    private OrderedList<Violation> violations;      // the accumulation of all offences by car and by city
+    private final Map<String, Car> carsByLicensePlate;  // index of all cars in this.cars by licensePlate
+                                                        // (concurrent, for parallel imports of detections)
+    private boolean carsUnsorted;                   // whether new cars have been appended to this.cars since its last sort
+                                                    // (guarded by carsByLicensePlate)
+
+    private OrderedArrayList<Violation> violations; // the accumulation of all offences by car and by city
+
+    private boolean byteLevelParsing;               // whether files are imported by the TrafficFileReader
+
+    private final ViolationAggregator violationCounters;   // the offences by car and by city in hash aggregation mode
+    private boolean hashAggregation;                // whether offences are accumulated by the violationCounters
+    private boolean violationsOutdated;             // whether this.violations lags behind the violationCounters
+
+    private final ViolationRanking<Car> violationsByCar;    // the offences of this.violations aggregated by car
+    private final ViolationRanking<String> violationsByCity;    // the offences of this.violations aggregated by city
+
+    private DetectionStore detectionStore;          // the detections of the latest columnar import, if any,
+                                                    // as long as no other offences have been merged since
 
     public TrafficTracker() {
         // initialize cars with an empty ordered list which sorts items by licensePlate.
         this.cars = new OrderedArrayList<>(Comparator.comparing(Car::getLicensePlate));
+        this.carsByLicensePlate = new ConcurrentHashMap<>();
         // initalize violations with an empty ordered list which sorts items by car and city.
         this.violations = new OrderedArrayList<>(Violation::compareByLicensePlateAndCity);
+        this.violationCounters = new ViolationAggregator();
+        this.violationsByCar = new ViolationRanking<>(Violation::getCar, Comparator.naturalOrder());
+        this.violationsByCity = new ViolationRanking<>(Violation::getCity, Comparator.naturalOrder());
     }
 
     /**
@@ -28,17 +50,34 @@ public class TrafficTracker {
      * @param resourceName
      */
     public void importCarsFromVault(String resourceName) {
+        int numberOfLines = importCars(
+                createFileFromURL(Objects.requireNonNull(TrafficTracker.class.getResource(resourceName))));
+
+        System.out.printf("Imported %d cars from %d lines in %s.\n", this.cars.size(), numberOfLines, resourceName);
+    }
+
+    /**
+     * imports all registered cars from the given file and indexes them by licensePlate
+     * @param file
+     * @return the number of lines in the file
+     */
+    int importCars(File file) {
         this.cars.clear();
+        this.carsByLicensePlate.clear();
 
         // load all cars from the text file
-        int numberOfLines = importItemsFromFile(this.cars,
-                createFileFromURL(Objects.requireNonNull(TrafficTracker.class.getResource(resourceName))),
-                Car::fromLine);
+        int numberOfLines = this.byteLevelParsing
+                ? TrafficFileReader.importItemsFromFile(this.cars, file, TrafficFileReader::readCar)
+                : importItemsFromFile(this.cars, file, Car::fromLine);
 
         // sort the cars for efficient later retrieval
         this.cars.sort();
+        this.carsUnsorted = false;
 
-        System.out.printf("Imported %d cars from %d lines in %s.\n", this.cars.size(), numberOfLines, resourceName);
+        for (Car car : this.cars) {
+            this.carsByLicensePlate.put(car.getLicensePlate(), car);
+        }
+        return numberOfLines;
     }
 
     /**
@@ -47,16 +86,199 @@ public class TrafficTracker {
      * @param resourceName
      */
     public void importDetectionsFromVault(String resourceName) {
-        this.violations.clear();
+        int totalNumberOfOffences = importDetections(
+                createFileFromURL(Objects.requireNonNull(TrafficTracker.class.getResource(resourceName))));
+
+        System.out.printf("Found %d offences among detections imported from files in %s.\n",
+                totalNumberOfOffences, resourceName);
+    }
+
+    /**
+     * imports and merges all raw detection data from the given file or folder, replacing earlier violations
+     * @param file
+     * @return the total number of offences found
+     */
+    int importDetections(File file) {
+        this.clearViolations();
+        return this.mergeDetectionsFromVaultRecursively(file);
+    }
 
-        int totalNumberOfOffences =
-            this.mergeDetectionsFromVaultRecursively(
-                    createFileFromURL(Objects.requireNonNull(TrafficTracker.class.getResource(resourceName))));
+    /**
+     * imports and merges all raw detection data of the vault like importDetectionsFromVault,
+     * but parses and validates the detection files concurrently
+     * @param resourceName
+     */
+    public void importDetectionsFromVaultInParallel(String resourceName) {
+        int totalNumberOfOffences = importDetectionsInParallel(
+                createFileFromURL(Objects.requireNonNull(TrafficTracker.class.getResource(resourceName))));
 
         System.out.printf("Found %d offences among detections imported from files in %s.\n",
                 totalNumberOfOffences, resourceName);
     }
 
+    /**
+     * imports and merges all raw detection data from the given file or folder, replacing earlier violations.
+     * Every detection file is parsed, validated and aggregated by its own task in the common fork-join pool,
+     * without touching this.violations. The per-file violations are merged into this.violations afterwards
+     * by the calling thread, in the same order of files as the sequential import.
+     * The violations of every file are sorted already, such that they are merged without re-sorting this.violations.
+     * @param file
+     * @return the total number of offences found
+     */
+    int importDetectionsInParallel(File file) {
+        this.clearViolations();
+
+        List<File> detectionFiles = new ArrayList<>();
+        findDetectionFilesRecursively(file, detectionFiles);
+
+        List<Collection<Violation>> violationsByFile = detectionFiles.parallelStream()
+                .map(this::aggregateViolationsFromFile)
+                .toList();
+
+        int totalNumberOfOffences = 0;
+        for (Collection<Violation> fileViolations : violationsByFile) {
+            this.mergeSortedViolations(fileViolations);
+            for (Violation violation : fileViolations) {
+                totalNumberOfOffences += violation.getOffencesCount();
+            }
+        }
+        return totalNumberOfOffences;
+    }
+
+    /**
+     * merges the offences of violations that are ordered by licensePlate and city, like mergeViolation,
+     * but without hash aggregation the violations that are new to the sorted this.violations
+     * are merged into the list in a single pass by addAllInOrder, instead of being appended one by one
+     * @param sortedViolations
+     */
+    private void mergeSortedViolations(Collection<Violation> sortedViolations) {
+        this.detectionStore = null;
+        if (this.hashAggregation) {
+            for (Violation violation : sortedViolations) {
+                this.mergeViolation(violation);
+            }
+            return;
+        }
+        List<Violation> newViolations = new ArrayList<>();
+        for (Violation violation : sortedViolations) {
+            this.violationsByCar.add(violation);
+            this.violationsByCity.add(violation);
+            int index = this.violations.indexOfByBinarySearch(violation);
+            if (index < 0) {
+                newViolations.add(violation);
+            } else {
+                this.violations.set(index, this.violations.get(index).combineOffencesCounts(violation));
+            }
+        }
+        this.violations.addAllInOrder(newViolations);
+    }
+
+    private void clearViolations() {
+        this.detectionStore = null;
+        this.violations.clear();
+        this.violationCounters.clear();
+        this.violationsOutdated = false;
+        this.violationsByCar.clear();
+        this.violationsByCity.clear();
+    }
+
+    /**
+     * merges the offences of the violation into the accumulated violations,
+     * by the violationCounters in O(1) time in hash aggregation mode, or else into this.violations directly
+     * and into the rankings by car and by city in O(log n) time
+     * the detection store no longer matches the violations after the merge, and is dropped
+     * @param violation
+     */
+    private void mergeViolation(Violation violation) {
+        this.detectionStore = null;
+        this.violationsByCar.add(violation);
+        this.violationsByCity.add(violation);
+        if (this.hashAggregation) {
+            this.violationCounters.add(violation);
+            this.violationsOutdated = true;
+        } else {
+            this.violations.merge(violation, Violation::combineOffencesCounts);
+        }
+    }
+
+    /**
+     * imports and merges all raw detection data of the vault like importDetectionsFromVault,
+     * but retains all detections in a columnar DetectionStore for subsequent group-by queries
+     * @param resourceName
+     */
+    public void importDetectionsFromVaultIntoStore(String resourceName) {
+        int totalNumberOfOffences = importDetectionsIntoStore(
+                createFileFromURL(Objects.requireNonNull(TrafficTracker.class.getResource(resourceName))));
+
+        System.out.printf("Found %d offences among %d detections imported from files in %s.\n",
+                totalNumberOfOffences, this.detectionStore.size(), resourceName);
+    }
+
+    /**
+     * imports all raw detection data from the given file or folder into a new DetectionStore, replacing earlier violations.
+     * The fields of every line are appended to the columns of the store as they are parsed, without Detection objects,
+     * after which the offences are validated and accumulated by the store in a single pass over its columns.
+     * groupViolationsByCarType and groupViolationsByCityType run on the store until other offences are merged.
+     * @param file
+     * @return the total number of offences found
+     */
+    int importDetectionsIntoStore(File file) {
+        this.clearViolations();
+
+        List<File> detectionFiles = new ArrayList<>();
+        findDetectionFilesRecursively(file, detectionFiles);
+
+        DetectionStore store = new DetectionStore();
+        for (File detectionFile : detectionFiles) {
+            int numberOfDetections = importDetectionsFromFile(store, detectionFile);
+            System.out.printf("Imported %d detections from %s.\n", numberOfDetections, detectionFile.getPath());
+        }
+
+        int totalNumberOfOffences = 0;
+        for (Violation violation : store.validatePurple()) {
+            this.mergeViolation(violation);
+            totalNumberOfOffences += violation.getOffencesCount();
+        }
+        this.detectionStore = store;
+        return totalNumberOfOffences;
+    }
+
+    /**
+     * collects all raw detection files in the file or folder, in the order of traversal by mergeDetectionsFromVaultRecursively
+     * @param file
+     * @param detectionFiles
+     */
+    private void findDetectionFilesRecursively(File file, List<File> detectionFiles) {
+        if (file.isDirectory()) {
+            for (File subFile : Objects.requireNonNullElse(file.listFiles(), new File[0])) {
+                findDetectionFilesRecursively(subFile, detectionFiles);
+            }
+        } else if (file.getName().matches(TRAFFIC_FILE_PATTERN)) {
+            detectionFiles.add(file);
+        }
+    }
+
+    /**
+     * imports the detections from the file and aggregates their offences by car and by city
+     * @param file
+     * @return the violations found in the file, ordered by licensePlate and city
+     */
+    private Collection<Violation> aggregateViolationsFromFile(File file) {
+        List<Detection> newDetections = new ArrayList<>();
+        importDetectionsFromFile(newDetections, file);
+
+        System.out.printf("Imported %d detections from %s.\n", newDetections.size(), file.getPath());
+
+        Map<Violation, Violation> fileViolations = new TreeMap<>(Violation::compareByLicensePlateAndCity);
+        for (Detection detection : newDetections) {
+            Violation violation = detection.validatePurple();
+            if (violation != null) {
+                fileViolations.merge(violation, violation, Violation::combineOffencesCounts);
+            }
+        }
+        return fileViolations.values();
+    }
+
     /**
      * traverses the detections vault recursively and processes every data file that it finds
      * @param file
@@ -90,18 +312,26 @@ public class TrafficTracker {
      * @param file
      */
     private int mergeDetectionsFromFile(File file) {
-        // re-sort the accumulated violations for efficient searching and merging
-        this.violations.sort();
-
         // use a regular ArrayList to load the raw detection info from the file
         List<Detection> newDetections = new ArrayList<>();
 
         //  import all detections from the specified file into the newDetections list
-        //  using the importItemsFromFile helper method and the Detection.fromLine parser.
-        importItemsFromFile(newDetections, file, line -> Detection.fromLine(line, getCars()));
+        importDetectionsFromFile(newDetections, file);
 
         System.out.printf("Imported %d detections from %s.\n", newDetections.size(), file.getPath());
 
+        return this.mergeDetections(newDetections);
+    }
+
+    /**
+     * validates the detections and merges the offences into the earlier imported and accumulated violations
+     * @param newDetections
+     * @return the number of offences found among the detections
+     */
+    int mergeDetections(Collection<Detection> newDetections) {
+        // re-sort the accumulated violations for efficient searching and merging
+        this.violations.sort();
+
         int totalNumberOfOffences = 0; // tracks the number of offences that emerges from the data in this file
 
         //  validate all detections against the purple criteria and
@@ -111,20 +341,63 @@ public class TrafficTracker {
         for (Detection detection: newDetections){
             Violation violation = detection.validatePurple();
                 if (violation != null){
-                    this.violations.merge(violation, Violation::combineOffencesCounts);
+                    this.mergeViolation(violation);
                     totalNumberOfOffences++;
                 }
         }
         return totalNumberOfOffences;
     }
 
+    /**
+     * imports all detections from the specified file into the detections list,
+     * using the importItemsFromFile helper method and the Detection.fromLine parser,
+     * or the TrafficFileReader if byte level parsing has been enabled
+     * @param detections
+     * @param file
+     */
+    private void importDetectionsFromFile(List<Detection> detections, File file) {
+        if (this.byteLevelParsing) {
+            TrafficFileReader.importItemsFromFile(detections, file, reader -> reader.readDetection(this::findOrAddCar));
+        } else {
+            importItemsFromFile(detections, file, line -> Detection.fromLine(line, this::findOrAddCar));
+        }
+    }
+
+    /**
+     * appends all detections from the specified file to the columns of the store,
+     * parsed by a Scanner, or by the TrafficFileReader if byte level parsing has been enabled
+     * @param store
+     * @param file
+     * @return the number of detections appended
+     */
+    private int importDetectionsFromFile(DetectionStore store, File file) {
+        int numberOfDetections = 0;
+        if (this.byteLevelParsing) {
+            TrafficFileReader reader = TrafficFileReader.open(file);
+            while (reader.nextLine()) {
+                if (!reader.isBlankLine() && store.add(reader, this::findOrAddCar)) {
+                    numberOfDetections++;
+                }
+            }
+        } else {
+            Scanner scanner = createFileScanner(file);
+            while (scanner.hasNext()) {
+                if (store.add(scanner.nextLine(), this::findOrAddCar)) {
+                    numberOfDetections++;
+                }
+            }
+        }
+        return numberOfDetections;
+    }
+
     /**
      * calculates the total revenue of fines from all violations,
      * Trucks pay €25 per offence, Coaches €35 per offence
      * @return the total amount of money recovered from all violations
      */
     public double calculateTotalFines() {
-        return this.violations.aggregate((violation) -> {
+        // the fines are summed without boxing, in parallel for large numbers of violations
+        return this.materializeViolations().aggregateInParallel((violation) -> {
             if (violation.getCar().getCarType() == Car.CarType.Truck)
                 return 25d * violation.getOffencesCount();
             return 35d * violation.getOffencesCount();
@@ -135,12 +408,17 @@ public class TrafficTracker {
      * @return all violations grouped together by car type in descending order of offence count
      */
     public List<Violation> groupViolationsByCarType() {
+        if (this.detectionStore != null) {
+            // count the offences per car id in a single pass over the columns of the store
+            return this.detectionStore.groupViolationsByCar();
+        }
+
         //Instantiate a new list that groups violations by car type
         OrderedArrayList<Violation> groupedViolations = new OrderedArrayList<>(Comparator.comparing(Violation::getCar));
 
         //Loop through the global violations list, aggregating items into the new array
         // based on car type
-        for (Violation violation : violations) {
+        for (Violation violation : materializeViolations()) {
             groupedViolations.merge(violation, Violation::combineOffencesCounts);
         }
 
@@ -154,12 +432,17 @@ public class TrafficTracker {
      * @return all violations grouped together by city type in descending order of offence count
      */
     public List<Violation> groupViolationsByCityType() {
+        if (this.detectionStore != null) {
+            // count the offences per city id in a single pass over the columns of the store
+            return this.detectionStore.groupViolationsByCity();
+        }
+
         //Instantiate a new list that groups violations by car type
         OrderedArrayList<Violation> groupedViolations = new OrderedArrayList<>(Comparator.comparing(Violation::getCity));
 
         //Loop through the global violations list, aggregating items into the new array
         // based on city type
-        for (Violation violation : violations) {
+        for (Violation violation : materializeViolations()) {
             groupedViolations.merge(violation, Violation::combineOffencesCounts);
         }
 
@@ -172,32 +455,27 @@ public class TrafficTracker {
     /**
      * Prepares a list of topNumber of violations that show the highest offencesCount
      * when this.violations are aggregated by car across all cities.
+     * The aggregates by car are maintained while offences are imported, such that this takes O(topNumber + log n) time
+     * instead of regrouping and sorting all violations. Violations with equal offencesCount are ranked by licensePlate.
      * @param topNumber     the requested top number of violations in the result list
      * @return              a list of topNum items that provides the top aggregated violations
      */
     public List<Violation> topViolationsByCar(int topNumber) {
-        //First, we group the violations based on car type
-        List<Violation> groupedViolations = groupViolationsByCarType();
-
-        //Then, we return the top violations based on offence count
-        return groupedViolations.subList(0, Math.min(topNumber, groupedViolations.size()));
+        return this.violationsByCar.top(topNumber);
     }
 
     /**
      * Prepares a list of topNumber of violations that show the highest offencesCount
      * when this.violations are aggregated by city across all cars.
+     * The aggregates by city are maintained while offences are imported, such that this takes O(topNumber + log n) time
+     * instead of regrouping and sorting all violations. Violations with equal offencesCount are ranked by city.
      * @param topNumber     the requested top number of violations in the result list
      * @return              a list of topNum items that provides the top aggregated violations
      */
     public List<Violation> topViolationsByCity(int topNumber) {
-        //First, we group the violations based on city type
-        List<Violation> groupedViolations = groupViolationsByCityType();
-
-        //Then, we return the top violations based on offence count
-        return groupedViolations.subList(0, Math.min(topNumber, groupedViolations.size()));
+        return this.violationsByCity.top(topNumber);
     }
 
-
     /**
      * imports a collection of items from a text file which provides one line for each item
      * @param items         the list to which imported items shall be added
@@ -246,11 +524,113 @@ public class TrafficTracker {
         }
     }
 
+    /**
+     * @return a new stream for incremental tracking of live detections, which finds the cars by licensePlate
+     *          among the cars of this tracker
+     */
+    public ViolationStream createViolationStream() {
+        return new ViolationStream(this::findOrAddCar);
+    }
+
+    /**
+     * finds the known car with the given licensePlate in O(1) time,
+     * or registers a new Car if the licensePlate is unknown (i.e. an unregistered or foreign car)
+     * new cars are appended to the unsorted section of this.cars, which is sorted once by the next getCars
+     * may be called concurrently by the tasks of a parallel import
+     * @param licensePlate
+     * @return the car with the licensePlate
+     */
+    public Car findOrAddCar(String licensePlate) {
+        Car car = this.carsByLicensePlate.get(licensePlate);
+        if (car == null) {
+            synchronized (this.carsByLicensePlate) {
+                car = this.carsByLicensePlate.get(licensePlate);
+                if (car == null) {
+                    car = new Car(licensePlate);
+                    this.cars.add(car);
+                    this.carsUnsorted = true;
+                    this.carsByLicensePlate.put(licensePlate, car);
+                }
+            }
+        }
+        return car;
+    }
+
+    public boolean isByteLevelParsing() {
+        return this.byteLevelParsing;
+    }
+
+    /**
+     * @param byteLevelParsing whether subsequent imports shall parse the files with a TrafficFileReader
+     *                         instead of a Scanner and the fromLine parsers of Car and Detection
+     */
+    public void setByteLevelParsing(boolean byteLevelParsing) {
+        this.byteLevelParsing = byteLevelParsing;
+    }
+
+    /**
+     * @return the detections of the latest import by importDetectionsIntoStore,
+     *          or null if the violations have been imported otherwise or other offences have been merged since
+     */
+    public DetectionStore getDetectionStore() {
+        return this.detectionStore;
+    }
+
+    /**
+     * @return all known cars, sorted by licensePlate (including the cars that have been registered by findOrAddCar)
+     */
     public OrderedList<Car> getCars() {
+        synchronized (this.carsByLicensePlate) {
+            if (this.carsUnsorted) {
+                // sort the new cars into the list at once, such that the complete list is binary searchable again
+                this.cars.sort();
+                this.carsUnsorted = false;
+            }
+        }
         return this.cars;
     }
 
+    /**
+     * @return a copy of the accumulated violations, sorted by licensePlate and city
+     *          (materialized from the violationCounters if they have changed in hash aggregation mode)
+     *          changes to the copy do not affect the violations and the rankings of this tracker
+     */
     public OrderedList<Violation> getViolations() {
+        OrderedArrayList<Violation> violations = new OrderedArrayList<>(Violation::compareByLicensePlateAndCity);
+        violations.addAllInOrder(this.materializeViolations());
+        return violations;
+    }
+
+    /**
+     * @return the accumulated violations, materialized from the violationCounters if they have changed
+     */
+    private OrderedList<Violation> materializeViolations() {
+        if (this.violationsOutdated) {
+            this.violationCounters.materializeInto(this.violations);
+            this.violationsOutdated = false;
+        }
         return this.violations;
     }
+
+    public boolean isHashAggregation() {
+        return this.hashAggregation;
+    }
+
+    /**
+     * @param hashAggregation whether subsequent imports shall accumulate offences in a hash map of counters
+     *                        by licensePlate and city, instead of merging them into the ordered violations
+     *                        the accumulated violations are retained when switching modes
+     */
+    public void setHashAggregation(boolean hashAggregation) {
+        if (hashAggregation && !this.hashAggregation) {
+            this.violationCounters.clear();
+            for (Violation violation : this.violations) {
+                this.violationCounters.add(violation);
+            }
+        } else if (!hashAggregation && this.hashAggregation) {
+            this.materializeViolations();
+            this.violationCounters.clear();
+        }
+        this.hashAggregation = hashAggregation;
+    }
 }
@@ -0,0 +1,97 @@
+package models;
+
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Accumulates offences by car and by city in a hash map of mutable counters, in O(1) time per offence,
+ * independent of the number of violations accumulated so far.
+ * The accumulated violations are materialized as an ordered list only on demand.
+ */
+public class ViolationAggregator {
+
+    /** identifies a violation, cars are uniquely defined by their license plate */
+    private record Key(Car car, String city) {
+    }
+
+    private static class Counter {
+        final Car car;
+        final String city;
+        int offencesCount;
+
+        Counter(Car car, String city) {
+            this.car = car;
+            this.city = city;
+        }
+    }
+
+    private final Map<Key, Counter> counters = new HashMap<>();
+    private int totalNumberOfOffences;
+
+    /**
+     * adds the offences of the violation to the counter of its car and city
+     * @param violation
+     */
+    public void add(Violation violation) {
+        add(violation.getCar(), violation.getCity(), violation.getOffencesCount());
+    }
+
+    /**
+     * adds a number of offences to the counter of the car and city
+     * @param car
+     * @param city
+     * @param offencesCount
+     */
+    public void add(Car car, String city, int offencesCount) {
+        counters.computeIfAbsent(new Key(car, city), key -> new Counter(car, city)).offencesCount += offencesCount;
+        totalNumberOfOffences += offencesCount;
+    }
+
+    /**
+     * @return the number of offences accumulated for the car and city
+     */
+    public int getOffencesCount(Car car, String city) {
+        Counter counter = counters.get(new Key(car, city));
+        return counter == null ? 0 : counter.offencesCount;
+    }
+
+    /**
+     * @return the number of distinct combinations of car and city with offences
+     */
+    public int size() {
+        return counters.size();
+    }
+
+    public int getTotalNumberOfOffences() {
+        return totalNumberOfOffences;
+    }
+
+    public void clear() {
+        counters.clear();
+        totalNumberOfOffences = 0;
+    }
+
+    /**
+     * replaces the content of the list by a violation for every counter, and sorts the list by licensePlate and city
+     * @param violations
+     */
+    public void materializeInto(OrderedList<Violation> violations) {
+        violations.clear();
+        for (Counter counter : counters.values()) {
+            Violation violation = new Violation(counter.car, counter.city);
+            violation.setOffencesCount(counter.offencesCount);
+            violations.add(violation);
+        }
+        violations.sort();
+    }
+
+    /**
+     * @return a new list of all accumulated violations, ordered by licensePlate and city
+     */
+    public OrderedList<Violation> toOrderedList() {
+        OrderedList<Violation> violations = new OrderedArrayList<>(Violation::compareByLicensePlateAndCity);
+        materializeInto(violations);
+        return violations;
+    }
+}
@@ -0,0 +1,107 @@
+package models;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Ranks the violations aggregated by some grouping key (e.g. by car or by city) in descending order of offencesCount,
+ * and keeps that ranking up to date while offences are added.
+ * Every aggregate is indexed by its key in a hash map and ordered in a balanced search tree,
+ * such that adding a violation takes O(log n) time for n keys, and the top k of the ranking are found in O(k + log n) time.
+ * Aggregates with equal offencesCount are ranked in the order of their keys.
+ *
+ * Like Violation.combineOffencesCounts, an aggregate retains the car and the city of its violations
+ * only if all of its violations match that car or that city.
+ * @param <K> the type of the grouping key
+ */
+public class ViolationRanking<K> {
+
+    private class Aggregate {
+        final K key;
+        Car car;
+        String city;
+        int offencesCount;
+
+        Aggregate(K key, Car car, String city) {
+            this.key = key;
+            this.car = car;
+            this.city = city;
+        }
+    }
+
+    private final Function<Violation, K> keyExtractor;
+    private final Map<K, Aggregate> aggregates = new HashMap<>();
+    private final TreeSet<Aggregate> ranking;
+
+    /**
+     * @param keyExtractor  finds the grouping key of a violation, e.g. Violation::getCar
+     * @param keyOrder      the order of aggregates with equal offencesCount
+     */
+    public ViolationRanking(Function<Violation, K> keyExtractor, Comparator<? super K> keyOrder) {
+        this.keyExtractor = keyExtractor;
+        this.ranking = new TreeSet<>(Comparator
+                .comparingInt((Aggregate aggregate) -> aggregate.offencesCount).reversed()
+                .thenComparing(aggregate -> aggregate.key, keyOrder));
+    }
+
+    /**
+     * adds the offences of the violation to the aggregate of its key, in O(log n) time
+     * @param violation
+     */
+    public void add(Violation violation) {
+        K key = keyExtractor.apply(violation);
+        Aggregate aggregate = aggregates.get(key);
+        if (aggregate == null) {
+            aggregate = new Aggregate(key, violation.getCar(), violation.getCity());
+            aggregates.put(key, aggregate);
+        } else {
+            // the aggregate shall be repositioned in the ranking after its offencesCount has changed
+            ranking.remove(aggregate);
+            if (aggregate.car != null && !aggregate.car.equals(violation.getCar())) {
+                aggregate.car = null;
+            }
+            if (aggregate.city != null && !aggregate.city.equals(violation.getCity())) {
+                aggregate.city = null;
+            }
+        }
+        aggregate.offencesCount += violation.getOffencesCount();
+        ranking.add(aggregate);
+    }
+
+    /**
+     * @param topNumber the requested top number of violations
+     * @return the topNumber of aggregated violations with the highest offencesCount, as new violations,
+     *          in descending order of offencesCount
+     */
+    public List<Violation> top(int topNumber) {
+        List<Violation> top = new ArrayList<>(Math.min(Math.max(topNumber, 0), ranking.size()));
+        Iterator<Aggregate> iterator = ranking.iterator();
+        while (top.size() < topNumber && iterator.hasNext()) {
+            Aggregate aggregate = iterator.next();
+            Violation violation = new Violation(aggregate.car, aggregate.city);
+            violation.setOffencesCount(aggregate.offencesCount);
+            top.add(violation);
+        }
+        return top;
+    }
+
+    /**
+     * @return the number of offences aggregated for the key, or 0 if there are none
+     */
+    public int getOffencesCount(K key) {
+        Aggregate aggregate = aggregates.get(key);
+        return aggregate == null ? 0 : aggregate.offencesCount;
+    }
+
+    /**
+     * @return the number of keys with offences
+     */
+    public int size() {
+        return aggregates.size();
+    }
+
+    public void clear() {
+        aggregates.clear();
+        ranking.clear();
+    }
+}
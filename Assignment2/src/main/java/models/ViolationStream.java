@@ -0,0 +1,131 @@
+package models;
+
+import java.util.*;
+import java.util.function.Function;
+
+/**
+ * Incremental violation tracking for live detection feeds, e.g. from the cameras at the city entry points.
+ * Detections are accepted one at a time or in micro-batches, and are validated against the purple criteria.
+ * Every offence updates the counts by car and city, by car and by city right away,
+ * such that the top violations by car and by city are always up to date without any re-aggregation.
+ * The offences are also counted per hour, day and week of their detection by ViolationWindows.
+ * Accepting a detection takes O(log n) time, a micro-batch of m detections with d distinct offenders
+ * takes O(m + d log n) time, as its offences are pre-aggregated before they are ranked.
+ */
+public class ViolationStream {
+    private final Function<String, Car> carFinder;
+    private final ViolationAggregator violationCounters = new ViolationAggregator();
+    private final ViolationRanking<Car> violationsByCar = new ViolationRanking<>(Violation::getCar, Comparator.naturalOrder());
+    private final ViolationRanking<String> violationsByCity = new ViolationRanking<>(Violation::getCity, Comparator.naturalOrder());
+    private final ViolationWindows violationWindows = new ViolationWindows();
+    private long numberOfDetections;
+
+    /**
+     * @param carFinder a function that finds the known car with a given licensePlate,
+     *                  or registers and returns a new Car if no such car is known yet
+     *                  (only needed for accepting raw text lines)
+     */
+    public ViolationStream(Function<String, Car> carFinder) {
+        this.carFinder = carFinder;
+    }
+
+    /**
+     * validates the detection and accounts for its offence, if any
+     * @param detection
+     * @return the violation found, or null if the detection saw no offence
+     */
+    public Violation accept(Detection detection) {
+        numberOfDetections++;
+        Violation violation = detection.validatePurple();
+        if (violation != null) {
+            violationCounters.add(violation);
+            violationsByCar.add(violation);
+            violationsByCity.add(violation);
+            violationWindows.add(violation, detection.getDateTime());
+        }
+        return violation;
+    }
+
+    /**
+     * parses the text line with format licensePlate, city, dateTime and accepts the detection
+     * @param textLine
+     * @return the violation found, or null if the detection saw no offence or the line was incomplete
+     */
+    public Violation accept(String textLine) {
+        Detection detection = Detection.fromLine(textLine, carFinder);
+        return detection == null ? null : accept(detection);
+    }
+
+    /**
+     * accepts a micro-batch of detections
+     * @param detections
+     * @return the number of offences in the batch
+     */
+    public int acceptAll(Collection<Detection> detections) {
+        numberOfDetections += detections.size();
+        ViolationAggregator batchCounters = new ViolationAggregator();
+        for (Detection detection : detections) {
+            Violation violation = detection.validatePurple();
+            if (violation != null) {
+                batchCounters.add(violation);
+                violationWindows.add(violation, detection.getDateTime());
+            }
+        }
+        for (Violation violation : batchCounters.toOrderedList()) {
+            violationCounters.add(violation);
+            violationsByCar.add(violation);
+            violationsByCity.add(violation);
+        }
+        return batchCounters.getTotalNumberOfOffences();
+    }
+
+    /**
+     * @param topNumber     the requested top number of violations in the result list
+     * @return the topNumber of violations aggregated by car across all cities, in descending order of offencesCount
+     */
+    public List<Violation> topViolationsByCar(int topNumber) {
+        return violationsByCar.top(topNumber);
+    }
+
+    /**
+     * @param topNumber     the requested top number of violations in the result list
+     * @return the topNumber of violations aggregated by city across all cars, in descending order of offencesCount
+     */
+    public List<Violation> topViolationsByCity(int topNumber) {
+        return violationsByCity.top(topNumber);
+    }
+
+    public int getOffencesCount(Car car, String city) {
+        return violationCounters.getOffencesCount(car, city);
+    }
+
+    public int getOffencesCountByCar(Car car) {
+        return violationsByCar.getOffencesCount(car);
+    }
+
+    public int getOffencesCountByCity(String city) {
+        return violationsByCity.getOffencesCount(city);
+    }
+
+    /**
+     * @return a new list of all violations so far, ordered by licensePlate and city
+     */
+    public OrderedList<Violation> getViolations() {
+        return violationCounters.toOrderedList();
+    }
+
+    /**
+     * @return the offences by car and by city per hour, day and week, for time-windowed queries
+     */
+    public ViolationWindows getViolationWindows() {
+        return violationWindows;
+    }
+
+    public long getNumberOfDetections() {
+        return numberOfDetections;
+    }
+
+    public int getTotalNumberOfOffences() {
+        return violationCounters.getTotalNumberOfOffences();
+    }
+}
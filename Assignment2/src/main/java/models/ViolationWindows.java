@@ -0,0 +1,229 @@
+package models;
+
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Counts offences per car and per city in time windows of an hour, a day or a week, based on the dateTime of the detections.
+ * For every granularity the counts are kept in a ring buffer of buckets, one bucket per window,
+ * which retains a limited number of the latest windows (by default one week of hours, a year of days and a year of weeks).
+ * A bucket expires in O(1) time when a later window claims its position in the ring,
+ * such that a year of detections never needs to be rescanned:
+ *    a tumbling window count (e.g. on 2022-10-01) takes O(1) time
+ *    a sliding window count over the latest n windows (e.g. the 7 days up to 2022-10-01) takes O(n) time
+ * Detections that are older than the retention of a granularity are not counted in that granularity.
+ * Weeks start on Monday, the dateTimes are taken as they are, without any time zone conversion.
+ */
+public class ViolationWindows {
+
+    public enum Granularity {
+        HOUR, DAY, WEEK;
+
+        /**
+         * @return the sequence number of the window of this granularity that contains the dateTime, counted from 1970-01-01
+         */
+        long windowOf(LocalDateTime dateTime) {
+            long epochSecond = dateTime.toEpochSecond(ZoneOffset.UTC);
+            switch (this) {
+                case HOUR:
+                    return Math.floorDiv(epochSecond, 3600);
+                case DAY:
+                    return Math.floorDiv(epochSecond, 86400);
+                default:
+                    // 1970-01-01 was a Thursday, 3 days after the start of its week
+                    return Math.floorDiv(Math.floorDiv(epochSecond, 86400) + 3, 7);
+            }
+        }
+    }
+
+    private static class Counter {
+        int count;
+    }
+
+    /** the counts of a single window */
+    private static class Bucket {
+        final long window;
+        final Map<Car, Counter> countsByCar = new HashMap<>();
+        final Map<String, Counter> countsByCity = new HashMap<>();
+        int count;
+
+        Bucket(long window) {
+            this.window = window;
+        }
+    }
+
+    /** the buckets of the latest windows of a granularity */
+    private static class BucketRing {
+        final Bucket[] buckets;
+        long latestWindow = Long.MIN_VALUE;
+
+        BucketRing(int numberOfWindows) {
+            this.buckets = new Bucket[numberOfWindows];
+        }
+
+        /**
+         * @return the bucket of the window, replacing the expired bucket at its position,
+         *          or null if the window has expired itself
+         */
+        Bucket claim(long window) {
+            if (latestWindow != Long.MIN_VALUE && window <= latestWindow - buckets.length) {
+                return null;
+            }
+            int position = (int) Math.floorMod(window, (long) buckets.length);
+            Bucket bucket = buckets[position];
+            if (bucket == null || bucket.window != window) {
+                bucket = new Bucket(window);
+                buckets[position] = bucket;
+            }
+            latestWindow = Math.max(latestWindow, window);
+            return bucket;
+        }
+
+        /**
+         * @return the bucket of the window, or null if there are no offences in the window or it has expired
+         */
+        Bucket find(long window) {
+            if (window <= latestWindow - buckets.length) {
+                // the bucket may not have been claimed by a later window yet, but it has expired nonetheless
+                return null;
+            }
+            Bucket bucket = buckets[(int) Math.floorMod(window, (long) buckets.length)];
+            return bucket != null && bucket.window == window ? bucket : null;
+        }
+    }
+
+    private final Map<Granularity, BucketRing> rings = new EnumMap<>(Granularity.class);
+
+    /**
+     * retains one week of hours, a year of days and a year of weeks
+     */
+    public ViolationWindows() {
+        this(7 * 24, 366, 53);
+    }
+
+    /**
+     * @param numberOfHours the number of latest hourly windows to retain
+     * @param numberOfDays  the number of latest daily windows to retain
+     * @param numberOfWeeks the number of latest weekly windows to retain
+     */
+    public ViolationWindows(int numberOfHours, int numberOfDays, int numberOfWeeks) {
+        rings.put(Granularity.HOUR, new BucketRing(numberOfHours));
+        rings.put(Granularity.DAY, new BucketRing(numberOfDays));
+        rings.put(Granularity.WEEK, new BucketRing(numberOfWeeks));
+    }
+
+    /**
+     * validates the detection against the purple criteria and counts its offence, if any, at the time of the detection
+     * @param detection
+     * @return the violation found, or null if the detection saw no offence
+     */
+    public Violation add(Detection detection) {
+        Violation violation = detection.validatePurple();
+        if (violation != null) {
+            add(violation, detection.getDateTime());
+        }
+        return violation;
+    }
+
+    /**
+     * counts the offences of the violation in the windows that contain the dateTime, in O(1) time
+     * @param violation
+     * @param dateTime
+     */
+    public void add(Violation violation, LocalDateTime dateTime) {
+        for (Granularity granularity : Granularity.values()) {
+            Bucket bucket = rings.get(granularity).claim(granularity.windowOf(dateTime));
+            if (bucket != null) {
+                bucket.countsByCar.computeIfAbsent(violation.getCar(), car -> new Counter()).count += violation.getOffencesCount();
+                bucket.countsByCity.computeIfAbsent(violation.getCity(), city -> new Counter()).count += violation.getOffencesCount();
+                bucket.count += violation.getOffencesCount();
+            }
+        }
+    }
+
+    /**
+     * @return the number of offences of the car in the window of the granularity that contains the dateTime
+     */
+    public int countByCar(Car car, Granularity granularity, LocalDateTime dateTime) {
+        return slidingCountByCar(car, granularity, 1, dateTime);
+    }
+
+    /**
+     * @return the number of offences in the city in the window of the granularity that contains the dateTime
+     */
+    public int countByCity(String city, Granularity granularity, LocalDateTime dateTime) {
+        return slidingCountByCity(city, granularity, 1, dateTime);
+    }
+
+    /**
+     * @return the number of offences in the window of the granularity that contains the dateTime
+     */
+    public int count(Granularity granularity, LocalDateTime dateTime) {
+        return slidingCount(granularity, 1, dateTime);
+    }
+
+    /**
+     * @param numberOfWindows the length of the sliding window, in windows of the granularity
+     * @return the number of offences of the car in the numberOfWindows windows up to and including
+     *          the window that contains the end dateTime
+     */
+    public int slidingCountByCar(Car car, Granularity granularity, int numberOfWindows, LocalDateTime end) {
+        BucketRing ring = ringOf(granularity, numberOfWindows);
+        long lastWindow = granularity.windowOf(end);
+        int count = 0;
+        for (long window = lastWindow - numberOfWindows + 1; window <= lastWindow; window++) {
+            Bucket bucket = ring.find(window);
+            Counter counter = bucket == null ? null : bucket.countsByCar.get(car);
+            count += counter == null ? 0 : counter.count;
+        }
+        return count;
+    }
+
+    /**
+     * @param numberOfWindows the length of the sliding window, in windows of the granularity
+     * @return the number of offences in the city in the numberOfWindows windows up to and including
+     *          the window that contains the end dateTime
+     */
+    public int slidingCountByCity(String city, Granularity granularity, int numberOfWindows, LocalDateTime end) {
+        BucketRing ring = ringOf(granularity, numberOfWindows);
+        long lastWindow = granularity.windowOf(end);
+        int count = 0;
+        for (long window = lastWindow - numberOfWindows + 1; window <= lastWindow; window++) {
+            Bucket bucket = ring.find(window);
+            Counter counter = bucket == null ? null : bucket.countsByCity.get(city);
+            count += counter == null ? 0 : counter.count;
+        }
+        return count;
+    }
+
+    /**
+     * @param numberOfWindows the length of the sliding window, in windows of the granularity
+     * @return the number of offences in the numberOfWindows windows up to and including the window that contains
+     *          the end dateTime
+     */
+    public int slidingCount(Granularity granularity, int numberOfWindows, LocalDateTime end) {
+        BucketRing ring = ringOf(granularity, numberOfWindows);
+        long lastWindow = granularity.windowOf(end);
+        int count = 0;
+        for (long window = lastWindow - numberOfWindows + 1; window <= lastWindow; window++) {
+            Bucket bucket = ring.find(window);
+            count += bucket == null ? 0 : bucket.count;
+        }
+        return count;
+    }
+
+    /**
+     * @throws IllegalArgumentException if a sliding window of numberOfWindows exceeds the retention of the granularity
+     */
+    private BucketRing ringOf(Granularity granularity, int numberOfWindows) {
+        BucketRing ring = rings.get(granularity);
+        if (numberOfWindows < 1 || numberOfWindows > ring.buckets.length) {
+            throw new IllegalArgumentException(String.format("A sliding window of %d windows per %s is not retained",
+                    numberOfWindows, granularity.name().toLowerCase()));
+        }
+        return ring;
+    }
+}
@@ -0,0 +1,60 @@
+package benchmarks;
+
+import models.Car;
+import models.OrderedArrayList;
+import models.Violation;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.LocalDate;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares the summation of fines over all violations, as in TrafficTracker.calculateTotalFines,
+ * by the boxing aggregate, the primitive aggregateAsDouble and the fork-join aggregateInParallel.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class AggregateBenchmark {
+
+    @Param({"10000", "1000000"})
+    int numberOfViolations;
+
+    OrderedArrayList<Violation> violations;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(1);
+        violations = new OrderedArrayList<>(Violation::compareByLicensePlateAndCity);
+        for (int i = 0; i < numberOfViolations; i++) {
+            Car car = new Car("XX-" + i, random.nextInt(6), random.nextBoolean() ? Car.CarType.Truck : Car.CarType.Coach,
+                    Car.FuelType.Diesel, LocalDate.EPOCH);
+            Violation violation = new Violation(car, "City-" + random.nextInt(100));
+            violation.setOffencesCount(1 + random.nextInt(10));
+            violations.add(violation);
+        }
+    }
+
+    private static double fine(Violation violation) {
+        return (violation.getCar().getCarType() == Car.CarType.Truck ? 25d : 35d) * violation.getOffencesCount();
+    }
+
+    @Benchmark
+    public double boxed() {
+        return violations.aggregate(AggregateBenchmark::fine);
+    }
+
+    @Benchmark
+    public double primitive() {
+        return violations.aggregateAsDouble(AggregateBenchmark::fine);
+    }
+
+    @Benchmark
+    public double parallel() {
+        return violations.aggregateInParallel(AggregateBenchmark::fine);
+    }
+}
@@ -0,0 +1,103 @@
+package benchmarks;
+
+import models.OrderedArrayList;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Compares four ways of adding a batch of new items to a sorted OrderedArrayList of size items,
+ * where every new item is looked up by indexOf after it has been added, like merge does:
+ *    appending to the unsorted section, where the lookups scan the growing unsorted section
+ *    appending the whole batch, sorting the list once and looking up the items afterwards
+ *    ordered insertion of every item at its binary searched position
+ *    a batched merge of the sorted batch into the list, looking up the items afterwards
+ * Every invocation starts from a copy of the same sorted list, which costs the same in all benchmarks.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class OrderedArrayListBenchmark {
+
+    @Param({"1000", "100000"})
+    int size;
+
+    @Param({"100", "10000"})
+    int batchSize;
+
+    List<Integer> sortedItems;
+    List<Integer> batch;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        Random random = new Random(1);
+        sortedItems = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+            sortedItems.add(random.nextInt());
+        }
+        sortedItems.sort(Comparator.naturalOrder());
+        batch = new ArrayList<>();
+        for (int i = 0; i < batchSize; i++) {
+            batch.add(random.nextInt());
+        }
+    }
+
+    private OrderedArrayList<Integer> sortedList() {
+        OrderedArrayList<Integer> list = new OrderedArrayList<>(Comparator.naturalOrder());
+        list.addAll(sortedItems);
+        list.sort();
+        return list;
+    }
+
+    @Benchmark
+    public int appendWithLookups() {
+        OrderedArrayList<Integer> list = sortedList();
+        int found = 0;
+        for (Integer item : batch) {
+            list.add(item);
+            found += list.indexOf(item);
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int appendThenSort() {
+        OrderedArrayList<Integer> list = sortedList();
+        list.addAll(batch);
+        list.sort();
+        int found = 0;
+        for (Integer item : batch) {
+            found += list.indexOf(item);
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int orderedInsertion() {
+        OrderedArrayList<Integer> list = sortedList();
+        int found = 0;
+        for (Integer item : batch) {
+            list.addInOrder(item);
+            found += list.indexOf(item);
+        }
+        return found;
+    }
+
+    @Benchmark
+    public int batchedMerge() {
+        OrderedArrayList<Integer> list = sortedList();
+        list.addAllInOrder(batch);
+        int found = 0;
+        for (Integer item : batch) {
+            found += list.indexOf(item);
+        }
+        return found;
+    }
+}
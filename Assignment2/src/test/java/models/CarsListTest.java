@@ -4,9 +4,11 @@ import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 
 import java.time.LocalDate;
+import java.util.ArrayList;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Locale;
+import java.util.Random;
 import java.util.function.BinaryOperator;
 import java.util.function.Function;
 
@@ -215,6 +217,72 @@ public class CarsListTest {
         testSearchForAll(cars, cars::indexOf);
     }
 
+    @Test
+    public void orderedInsertionKeepsTheListSorted() {
+        cars.setOrderedInsertion(true);
+        assertEquals(cars.size(), cars.nSorted, "switching to ordered insertion shall sort the list");
+        cars.add(daf2);
+        cars.add(volvo2);
+        assertEquals(initialCars.size() + 2, cars.nSorted, "add(item) shall insert the item in the sorted section");
+        checkRepresentationInvariant(this.cars);
+        assertSame(daf2, cars.get(cars.indexOf(daf2)));
+        assertTrue(cars.merge(daf3, (car, other) -> car));
+        assertEquals(initialCars.size() + 3, cars.nSorted, "merge(item) shall insert a new item in the sorted section");
+
+        cars.addAll(List.of(icova, new Car("ZZ-99-ZZ"), new Car("0-AAA-00"), daf1));
+        assertEquals(initialCars.size() + 7, cars.size());
+        assertEquals(cars.size(), cars.nSorted, "addAll(items) shall merge the items into the sorted section");
+        checkRepresentationInvariant(this.cars);
+        assertEquals("0-AAA-00", cars.get(0).getLicensePlate());
+        assertEquals("ZZ-99-ZZ", cars.get(cars.size() - 1).getLicensePlate());
+        // duplicates follow the items already in the list
+        assertSame(icova, cars.get(cars.lastIndexOf(icova)));
+        testSearchForAll(cars, cars::indexOf);
+
+        cars.setOrderedInsertion(false);
+        cars.add(new Car("0-AAA-01"));
+        assertEquals(cars.size() - 1, cars.nSorted, "add(item) shall append in the default mode");
+    }
+
+    @Test
+    public void batchedMergeMatchesSorting() {
+        Random random = new Random(5);
+        OrderedArrayList<Integer> numbers = new OrderedArrayList<>(Comparator.naturalOrder());
+        List<Integer> expected = new ArrayList<>();
+        for (int round = 0; round < 50; round++) {
+            List<Integer> batch = new ArrayList<>();
+            for (int i = random.nextInt(20); i > 0; i--) {
+                batch.add(random.nextInt(100));
+            }
+            // an unsorted section is sorted before merging
+            numbers.addAll(batch.subList(0, batch.size() / 2));
+            numbers.addAllInOrder(batch.subList(batch.size() / 2, batch.size()));
+            numbers.addInOrder(round);
+            expected.addAll(batch);
+            expected.add(round);
+            expected.sort(Comparator.naturalOrder());
+            assertEquals(expected, numbers);
+            assertEquals(numbers.size(), numbers.nSorted);
+        }
+    }
+
+    @Test
+    public void aggregatesMatchInAllVariants() {
+        assertEquals(initialCars.size() * 6.0, cars.aggregate(car -> 6.0));
+        assertEquals(33.0, cars.aggregateAsDouble(Car::getEmissionCategory));
+        assertEquals(33.0, cars.aggregateInParallel(Car::getEmissionCategory));
+
+        OrderedArrayList<Integer> numbers = new OrderedArrayList<>(Comparator.naturalOrder());
+        for (int i = 1; i <= 1_000_000; i++) {
+            numbers.add(i);
+        }
+        assertEquals(500_000_500_000.0, numbers.aggregateAsDouble(Integer::doubleValue));
+        assertEquals(500_000_500_000.0, numbers.aggregateInParallel(Integer::doubleValue));
+        assertEquals(numbers.aggregateInParallel(i -> 1.0 / i), numbers.aggregateInParallel(i -> 1.0 / i),
+                "the parallel aggregation shall be reproducible");
+        assertEquals(numbers.aggregate(i -> 1.0 / i), numbers.aggregateInParallel(i -> 1.0 / i), 1e-9);
+    }
+
     /**
      * checks whether a searcher can find all items in its list
      * this should work both for OrderedLists and regular Lists
@@ -6,8 +6,11 @@ import org.junit.jupiter.api.Test;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
 
 import static org.junit.jupiter.api.Assertions.*;
 
@@ -49,6 +52,36 @@ public class DetectionTest {
         assertEquals(LocalDateTime.of(2022,10,1,12,11,10), detection3.getDateTime());
     }
 
+    @Test
+    public void canFindTheCarOfADetectionInAnIndex() {
+        Map<String, Car> carsByLicensePlate = new HashMap<>();
+        for (Car car : cars) {
+            carsByLicensePlate.put(car.getLicensePlate(), car);
+        }
+        Detection detection1 = Detection.fromLine(" 1-TTT-01 , Amsterdam , 2022-10-01T12:11:10", carsByLicensePlate::get);
+        assertSame(volvo1, detection1.getCar());
+        assertEquals("Amsterdam", detection1.getCity());
+
+        Detection detection2 = Detection.fromLine("XX-99-XX,Leiden,2022-10-01T12:11:10",
+                licensePlate -> carsByLicensePlate.computeIfAbsent(licensePlate, Car::new));
+        assertEquals("XX-99-XX", detection2.getCar().getLicensePlate());
+        assertSame(detection2.getCar(), carsByLicensePlate.get("XX-99-XX"));
+        assertNull(Detection.fromLine("XX-99-XX,Leiden", carsByLicensePlate::get));
+    }
+
+    @Test
+    public void canFindTheCarOfADetectionInAnOrderedList() {
+        OrderedArrayList<Car> orderedCars = new OrderedArrayList<>(Comparator.comparing(Car::getLicensePlate));
+        orderedCars.addAll(cars);
+        orderedCars.sort();
+        assertSame(daf2, Detection.fromLine("1-CCC-02,Utrecht,2022-10-01T12:11:10", orderedCars).getCar());
+
+        Car unknown = Detection.fromLine("ZZ-00-ZZ,Utrecht,2022-10-01T12:11:10", orderedCars).getCar();
+        assertEquals(cars.size() + 1, orderedCars.size());
+        assertSame(unknown, Detection.fromLine("ZZ-00-ZZ,Delft,2022-10-01T12:11:10", orderedCars).getCar());
+        assertEquals(cars.size() + 1, orderedCars.size());
+    }
+
     @Test
     public void aDetectionHasAStringRepresentation() {
         Detection detection1 = new Detection(scoda, "Leiden", LocalDateTime.of(2022,10,1,12,11,10));
@@ -0,0 +1,133 @@
+package models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrafficFileReaderTest {
+
+    Map<String, Car> carsByLicensePlate;
+
+    @BeforeEach
+    public void setup() {
+        Locale.setDefault(Locale.ENGLISH);
+        carsByLicensePlate = new HashMap<>();
+    }
+
+    private static TrafficFileReader readerOf(String text) {
+        return new TrafficFileReader(ByteBuffer.wrap(text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void carsShouldBeParsedLikeFromLine() {
+        List<String> lines = List.of(
+                "1-AAA-02, 6, Car, Gasoline, 2014-01-31",
+                " VV-11-BB ,4,Van,Diesel ,1998-01-31 ",
+                "1-TTT-01,+5,Truck,Diesel,2009-01-31,extra",
+                "1-CCC-01,-5,Coach,Lpg,2009-01-31",
+                "1-CCC-02,5,Coach,Diesel,2009-1-31",
+                "1-CCC-03,x,Coach,Diesel,2009-01-31",
+                "1-CCC-04,5,Bus,Diesel,2009-01-31",
+                "1-CCC-05,5,Coach,Hydrogen,2009-01-31",
+                "1-CCC-06,5,Coach,Diesel,2009-02-30",
+                "1-CCC-07,2147483648,Coach,Diesel,2009-01-31",
+                "1-CCC-08,5,Coach",
+                " ");
+        TrafficFileReader reader = readerOf(String.join("\n", lines));
+        for (String line : lines) {
+            assertTrue(reader.nextLine());
+            assertEquals(line, reader.line());
+            Car expected = Car.fromLine(line);
+            Car car = reader.readCar();
+            if (expected == null) {
+                assertNull(car, line);
+            } else {
+                assertEquals(expected.toString(), car.toString(), line);
+                assertEquals(expected.getDateOfAdmission(), car.getDateOfAdmission(), line);
+            }
+        }
+        assertFalse(reader.nextLine());
+    }
+
+    @Test
+    public void detectionsShouldBeParsedLikeFromLine() {
+        List<String> lines = List.of(
+                "1-AAA-02,Amsterdam,2022-10-01T12:11:10",
+                "AA-11-BB, Rotterdam, 2022-10-01T12:11",
+                " VV-11-BB , Den Haag , 2022-10-01T12:11:10.250 ",
+                "1-AAA-02, Den Haag,2022-12-31T23:59:59",
+                "AA-11-BB, Amsterdam, 2022-10-01T00:00:00");
+        TrafficFileReader reader = readerOf(String.join("\r\n", lines) + "\r\n");
+        List<Detection> detections = new ArrayList<>();
+        for (String line : lines) {
+            assertTrue(reader.nextLine());
+            Detection expected = Detection.fromLine(line, licensePlate -> carsByLicensePlate.computeIfAbsent(licensePlate, Car::new));
+            Detection detection = reader.readDetection(carsByLicensePlate::get);
+            assertEquals(expected.toString(), detection.toString(), line);
+            assertSame(expected.getCar(), detection.getCar());
+            detections.add(detection);
+        }
+        assertFalse(reader.nextLine());
+        assertSame(detections.get(2).getCity(), detections.get(3).getCity(), "cities shall be shared");
+        assertSame(detections.get(0).getCity(), detections.get(4).getCity(), "cities shall be shared");
+
+        reader = readerOf("AA-11-BB, Rotterdam\rAA-11-BB, Rotterdam, 2022-13-01T12:11");
+        assertTrue(reader.nextLine());
+        assertNull(reader.readDetection(carsByLicensePlate::get));
+        assertTrue(reader.nextLine());
+        TrafficFileReader corruptReader = reader;
+        assertThrows(DateTimeParseException.class, () -> corruptReader.readDetection(carsByLicensePlate::get));
+    }
+
+    @Test
+    public void fieldsShouldBeParsedInPlace() {
+        TrafficFileReader reader = readerOf(" 2147483647 ,-2147483648, Diesel,,2022-02-28, 2022-02-28T08:30\n\nlast");
+        assertTrue(reader.nextLine());
+        assertTrue(reader.nextField());
+        assertEquals(Integer.MAX_VALUE, reader.intField());
+        assertTrue(reader.nextField());
+        assertEquals(Integer.MIN_VALUE, reader.intField());
+        assertTrue(reader.nextField());
+        assertEquals(Car.FuelType.Diesel, reader.enumField(Car.FuelType.values()));
+        assertTrue(reader.nextField());
+        assertEquals("", reader.stringField());
+        assertThrows(NumberFormatException.class, reader::intField);
+        assertTrue(reader.nextField());
+        assertEquals(LocalDate.of(2022, 2, 28), reader.dateField());
+        assertTrue(reader.nextField());
+        assertEquals(LocalDateTime.of(2022, 2, 28, 8, 30), reader.dateTimeField());
+        assertFalse(reader.nextField());
+
+        assertTrue(reader.nextLine());
+        assertEquals("", reader.line());
+        assertTrue(reader.nextLine());
+        assertTrue(reader.nextField());
+        assertEquals("last", reader.stringField());
+        assertFalse(reader.nextField());
+        assertFalse(reader.nextLine());
+    }
+
+    @Test
+    public void manyCitiesShouldBeDistinguished() {
+        StringBuilder text = new StringBuilder();
+        for (int i = 0; i < 1000; i++) {
+            text.append("XX-").append(i).append(",City ").append(i % 100).append(",2022-10-01T12:00:00\n");
+        }
+        TrafficFileReader reader = readerOf(text.toString());
+        Map<String, String> cities = new HashMap<>();
+        for (int i = 0; i < 1000; i++) {
+            assertTrue(reader.nextLine());
+            Detection detection = reader.readDetection(Car::new);
+            assertEquals("City " + (i % 100), detection.getCity());
+            assertSame(cities.computeIfAbsent(detection.getCity(), city -> city), detection.getCity());
+        }
+    }
+}
@@ -0,0 +1,199 @@
+package models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TrafficTrackerFileTest {
+
+    @TempDir
+    Path vault;
+
+    TrafficTracker trafficTracker;
+
+    @BeforeEach
+    public void setup() throws IOException {
+        Locale.setDefault(Locale.ENGLISH);
+        Files.write(vault.resolve("cars.txt"), List.of(
+                "1-AAA-02, 6, Car, Gasoline, 2014-01-31",
+                "1-TTT-01, 5, Truck, Diesel, 2009-01-31",
+                "1-TTT-02, 6, Truck, Diesel, 2011-01-31",
+                "1-CCC-01, 5, Coach, Diesel, 2009-01-31",
+                "1-CCC-02, 4, Coach, Diesel, 2008-01-31"));
+        Path detections = Files.createDirectories(vault.resolve("detections").resolve("Amsterdam"));
+        Files.write(detections.resolve("2022-10-01.txt"), List.of(
+                "1-AAA-02, Amsterdam, 2022-10-01T08:00:00",
+                "1-TTT-01, Amsterdam, 2022-10-01T08:05:00",
+                "1-TTT-02, Amsterdam, 2022-10-01T08:10:00",
+                "1-CCC-01, Amsterdam, 2022-10-01T08:15:00",
+                "1-TTT-01, Amsterdam, 2022-10-01T17:05:00",
+                "XX-99-XX, Amsterdam, 2022-10-01T17:10:00"));
+        detections = Files.createDirectories(vault.resolve("detections").resolve("Rotterdam"));
+        Files.write(detections.resolve("2022-10-01.txt"), List.of(
+                "1-TTT-01, Rotterdam, 2022-10-01T11:05:00",
+                "1-CCC-02, Rotterdam, 2022-10-01T11:15:00",
+                "XX-99-XX, Rotterdam, 2022-10-01T17:10:00"));
+        Files.write(detections.resolve("2022-10-02.txt"), List.of(
+                "1-CCC-02, Rotterdam, 2022-10-02T11:15:00",
+                "1-CCC-01, Rotterdam, 2022-10-02T12:15:00"));
+
+        trafficTracker = new TrafficTracker();
+        trafficTracker.importCars(file("cars.txt"));
+    }
+
+    File file(String name) {
+        return vault.resolve(name).toFile();
+    }
+
+    @Test
+    public void detectionsShouldFindTheImportedCars() {
+        assertEquals(7, trafficTracker.importDetections(file("detections")));
+        assertEquals(6, trafficTracker.getCars().size(), "the unknown car should have been added once");
+        assertSame(trafficTracker.findOrAddCar("XX-99-XX"), trafficTracker.findOrAddCar("XX-99-XX"));
+        assertEquals(5, trafficTracker.getCars().indexOfByBinarySearch(new Car("XX-99-XX")),
+                "the unknown car should have been sorted into the cars");
+        assertEquals(Car.CarType.Truck, trafficTracker.findOrAddCar("1-TTT-01").getCarType());
+
+        assertEquals("[1-CCC-01/Amsterdam/1, 1-CCC-01/Rotterdam/1, 1-CCC-02/Rotterdam/2, 1-TTT-01/Amsterdam/2, 1-TTT-01/Rotterdam/1]",
+                trafficTracker.getViolations().toString());
+        trafficTracker.getViolations().clear();
+        assertEquals(5, trafficTracker.getViolations().size(), "changes to the copy should not affect the tracker");
+        assertEquals(3 * 25d + 4 * 35d, trafficTracker.calculateTotalFines());
+    }
+
+    @Test
+    public void hashAggregationShouldFindTheSameViolations() {
+        trafficTracker.setHashAggregation(true);
+        assertEquals(7, trafficTracker.importDetections(file("detections")));
+        assertEquals("[1-CCC-01/Amsterdam/1, 1-CCC-01/Rotterdam/1, 1-CCC-02/Rotterdam/2, 1-TTT-01/Amsterdam/2, 1-TTT-01/Rotterdam/1]",
+                trafficTracker.getViolations().toString());
+        CarsListTest.checkRepresentationInvariant(trafficTracker.getViolations());
+        assertEquals(3 * 25d + 4 * 35d, trafficTracker.calculateTotalFines());
+        assertEquals("1-TTT-01", trafficTracker.topViolationsByCar(1).get(0).getCar().getLicensePlate());
+
+        // the accumulated violations survive switching modes
+        trafficTracker.setHashAggregation(false);
+        assertEquals(5, trafficTracker.getViolations().size());
+        trafficTracker.setHashAggregation(true);
+        assertEquals(5, trafficTracker.getViolations().size());
+
+        ViolationAggregator aggregator = new ViolationAggregator();
+        Car car = trafficTracker.findOrAddCar("1-TTT-01");
+        aggregator.add(new Violation(car, "Amsterdam"));
+        aggregator.add(new Violation(new Car("1-TTT-01"), "Amsterdam"));
+        aggregator.add(car, "Rotterdam", 3);
+        assertEquals(2, aggregator.size());
+        assertEquals(5, aggregator.getTotalNumberOfOffences());
+        assertEquals(2, aggregator.getOffencesCount(car, "Amsterdam"));
+        assertEquals(0, aggregator.getOffencesCount(car, "Utrecht"));
+        assertEquals("[1-TTT-01/Amsterdam/2, 1-TTT-01/Rotterdam/3]", aggregator.toOrderedList().toString());
+    }
+
+    @Test
+    public void alternativeImportsShouldFindTheSameViolations() throws IOException {
+        Random random = new Random(17);
+        String[] cities = {"Amsterdam", "Rotterdam", "Den Haag", "Utrecht"};
+        String[] licensePlates = {"1-AAA-02", "1-TTT-01", "1-TTT-02", "1-CCC-01", "1-CCC-02", "XX-99-XX", "YY-88-YY"};
+        for (String city : cities) {
+            Path folder = Files.createDirectories(vault.resolve("generated").resolve(city));
+            for (int day = 1; day <= 10; day++) {
+                List<String> lines = new ArrayList<>();
+                for (int i = 0; i < 200; i++) {
+                    lines.add(String.format("%s, %s, 2022-10-%02dT%02d:%02d:00",
+                            licensePlates[random.nextInt(licensePlates.length)], cities[random.nextInt(cities.length)],
+                            day, random.nextInt(24), random.nextInt(60)));
+                }
+                Files.write(folder.resolve(String.format("2022-10-%02d.txt", day)), lines);
+            }
+        }
+
+        int sequentialOffences = trafficTracker.importDetections(file("generated"));
+        String sequentialViolations = trafficTracker.getViolations().toString();
+
+        TrafficTracker byteLevelTracker = new TrafficTracker();
+        byteLevelTracker.setByteLevelParsing(true);
+        byteLevelTracker.importCars(file("cars.txt"));
+        assertEquals(trafficTracker.getCars().subList(0, 5).toString(), byteLevelTracker.getCars().toString());
+        assertEquals(sequentialOffences, byteLevelTracker.importDetections(file("generated")));
+        assertEquals(sequentialViolations, byteLevelTracker.getViolations().toString());
+
+        TrafficTracker hashTracker = new TrafficTracker();
+        hashTracker.setHashAggregation(true);
+        hashTracker.importCars(file("cars.txt"));
+        assertEquals(sequentialOffences, hashTracker.importDetectionsInParallel(file("generated")));
+        assertEquals(sequentialViolations, hashTracker.getViolations().toString());
+        assertEquals(trafficTracker.topViolationsByCar(3).toString(), hashTracker.topViolationsByCar(3).toString());
+        assertEquals(trafficTracker.topViolationsByCity(3).toString(), hashTracker.topViolationsByCity(3).toString());
+        assertEquals(trafficTracker.groupViolationsByCarType().subList(0, 3).stream().map(Violation::getOffencesCount).toList(),
+                hashTracker.topViolationsByCar(3).stream().map(Violation::getOffencesCount).toList());
+
+        TrafficTracker parallelTracker = new TrafficTracker();
+        parallelTracker.importCars(file("cars.txt"));
+        assertEquals(sequentialOffences, parallelTracker.importDetectionsInParallel(file("generated")));
+        assertEquals(sequentialViolations, parallelTracker.getViolations().toString());
+        assertEquals(7, parallelTracker.getCars().size(), "the unknown cars should have been added once");
+        CarsListTest.checkRepresentationInvariant(parallelTracker.getViolations());
+    }
+
+    @Test
+    public void detectionStoreShouldFindTheSameViolations() {
+        assertEquals(7, trafficTracker.importDetectionsIntoStore(file("detections")));
+        DetectionStore store = trafficTracker.getDetectionStore();
+        assertEquals(11, store.size());
+        assertEquals(6, store.getNumberOfCars());
+        assertEquals(2, store.getNumberOfCities());
+        assertEquals(7, store.countPurpleOffences());
+        assertEquals("[1-CCC-01/Amsterdam/1, 1-CCC-01/Rotterdam/1, 1-CCC-02/Rotterdam/2, 1-TTT-01/Amsterdam/2, 1-TTT-01/Rotterdam/1]",
+                store.validatePurple().toString());
+        CarsListTest.checkRepresentationInvariant(trafficTracker.getViolations());
+        assertEquals(3 * 25d + 4 * 35d, trafficTracker.calculateTotalFines());
+
+        Car truck = trafficTracker.findOrAddCar("1-TTT-01");
+        LocalDateTime day = LocalDateTime.of(2022, 10, 1, 0, 0);
+        assertEquals(2, store.countDetections(truck, "Amsterdam", day, day.plusDays(1)));
+        assertEquals(1, store.countDetections(truck, "Amsterdam", day, day.plusHours(12)));
+        assertEquals(0, store.countDetections(truck, "Utrecht", day, day.plusDays(1)));
+        Detection detection = store.get(1);
+        assertSame(truck, detection.getCar());
+        assertEquals("1-TTT-01/Amsterdam/2022-10-01T08:05", detection.toString());
+        assertThrows(IndexOutOfBoundsException.class, () -> store.get(11));
+
+        // the group-by queries run on the store
+        assertEquals("[1-TTT-01/null/3, 1-CCC-01/null/2, 1-CCC-02/Rotterdam/2]",
+                trafficTracker.groupViolationsByCarType().toString());
+        assertEquals(Set.of("null/Amsterdam/3", "null/Rotterdam/4"),
+                trafficTracker.groupViolationsByCityType().stream().map(Violation::toString).collect(Collectors.toSet()));
+        TrafficTracker listTracker = new TrafficTracker();
+        listTracker.importCars(file("cars.txt"));
+        listTracker.importDetections(file("detections"));
+        assertEquals(listTracker.groupViolationsByCarType().toString(), trafficTracker.groupViolationsByCarType().toString());
+        assertEquals(listTracker.topViolationsByCity(2).toString(), trafficTracker.topViolationsByCity(2).toString());
+
+        // byte level parsing appends the same detections to the store
+        TrafficTracker byteLevelTracker = new TrafficTracker();
+        byteLevelTracker.setByteLevelParsing(true);
+        byteLevelTracker.importCars(file("cars.txt"));
+        assertEquals(7, byteLevelTracker.importDetectionsIntoStore(file("detections")));
+        assertEquals(11, byteLevelTracker.getDetectionStore().size());
+        assertEquals(store.validatePurple().toString(), byteLevelTracker.getDetectionStore().validatePurple().toString());
+
+        // offences merged later are grouped from the violations, the store does not hold them
+        assertEquals(1, trafficTracker.mergeDetections(List.of(new Detection(truck, "Utrecht", day))));
+        assertNull(trafficTracker.getDetectionStore());
+        assertEquals("1-TTT-01/null/4", trafficTracker.groupViolationsByCarType().get(0).toString());
+
+        // a later import replaces the store
+        trafficTracker.importDetections(file("detections"));
+        assertNull(trafficTracker.getDetectionStore());
+    }
+}
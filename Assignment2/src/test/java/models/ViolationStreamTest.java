@@ -0,0 +1,95 @@
+package models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.*;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ViolationStreamTest {
+
+    Car scoda, volvo1, volvo2, daf1, daf2;
+    Map<String, Car> carsByLicensePlate;
+    ViolationStream stream;
+
+    @BeforeEach
+    public void setup() {
+        Locale.setDefault(Locale.ENGLISH);
+        scoda = new Car("1-AAA-02", 6, Car.CarType.Car, Car.FuelType.Gasoline, LocalDate.of(2014,1,31));
+        volvo1 = new Car("1-TTT-01", 5, Car.CarType.Truck, Car.FuelType.Diesel, LocalDate.of(2009,1,31));
+        volvo2 = new Car("1-TTT-02", 6, Car.CarType.Truck, Car.FuelType.Diesel, LocalDate.of(2011,1,31));
+        daf1 = new Car("1-CCC-01", 5, Car.CarType.Coach, Car.FuelType.Diesel, LocalDate.of(2009,1,31));
+        daf2 = new Car("1-CCC-02", 4, Car.CarType.Coach, Car.FuelType.Diesel, LocalDate.of(2008,1,31));
+        carsByLicensePlate = new HashMap<>();
+        for (Car car : List.of(scoda, volvo1, volvo2, daf1, daf2)) {
+            carsByLicensePlate.put(car.getLicensePlate(), car);
+        }
+        stream = new ViolationStream(licensePlate -> carsByLicensePlate.computeIfAbsent(licensePlate, Car::new));
+    }
+
+    @Test
+    public void topViolationsShouldFollowEveryDetection() {
+        assertNull(stream.accept("1-AAA-02, Amsterdam, 2022-10-01T08:00:00"));
+        assertNotNull(stream.accept("1-TTT-01, Amsterdam, 2022-10-01T08:05:00"));
+        assertEquals("[1-TTT-01/Amsterdam/1]", stream.topViolationsByCar(5).toString());
+
+        stream.accept("1-CCC-01, Rotterdam, 2022-10-01T08:15:00");
+        stream.accept("1-CCC-01, Rotterdam, 2022-10-01T09:15:00");
+        assertEquals("[1-CCC-01/Rotterdam/2, 1-TTT-01/Amsterdam/1]", stream.topViolationsByCar(5).toString());
+        assertEquals("[Rotterdam]", List.of(stream.topViolationsByCity(1).get(0).getCity()).toString());
+
+        stream.accept("1-TTT-01, Rotterdam, 2022-10-01T10:05:00");
+        stream.accept("1-TTT-01, Utrecht, 2022-10-01T11:05:00");
+        // the city of an aggregate by car is nullified when it does not match all violations
+        assertEquals("[1-TTT-01/null/3, 1-CCC-01/Rotterdam/2]", stream.topViolationsByCar(5).toString());
+        assertEquals("[null/Rotterdam/3, 1-TTT-01/Amsterdam/1, 1-TTT-01/Utrecht/1]", stream.topViolationsByCity(5).toString());
+        assertEquals(2, stream.getOffencesCount(daf1, "Rotterdam"));
+        assertEquals(3, stream.getOffencesCountByCar(volvo1));
+        assertEquals(3, stream.getOffencesCountByCity("Rotterdam"));
+        assertEquals(2, stream.getViolationWindows().countByCar(daf1, ViolationWindows.Granularity.DAY,
+                LocalDateTime.of(2022, 10, 1, 0, 0)));
+        assertEquals(1, stream.getViolationWindows().countByCity("Rotterdam", ViolationWindows.Granularity.HOUR,
+                LocalDateTime.of(2022, 10, 1, 10, 0)));
+        assertEquals(6, stream.getNumberOfDetections());
+        assertEquals(5, stream.getTotalNumberOfOffences());
+        assertEquals(List.of(), stream.topViolationsByCar(0));
+    }
+
+    @Test
+    public void microBatchesShouldMatchTheBatchImport() {
+        Random random = new Random(23);
+        String[] cities = {"Amsterdam", "Rotterdam", "Den Haag", "Utrecht", "Leiden"};
+        List<Car> cars = new ArrayList<>(carsByLicensePlate.values());
+        for (int i = 0; i < 50; i++) {
+            Car car = new Car("XX-" + i, random.nextInt(8), random.nextBoolean() ? Car.CarType.Truck : Car.CarType.Coach,
+                    Car.FuelType.Diesel, LocalDate.of(2010, 1, 1));
+            cars.add(car);
+        }
+        ViolationStream singles = new ViolationStream(Car::new);
+        TrafficTracker tracker = new TrafficTracker();
+        int totalNumberOfOffences = 0;
+        for (int batch = 0; batch < 100; batch++) {
+            List<Detection> detections = new ArrayList<>();
+            for (int i = random.nextInt(50); i > 0; i--) {
+                detections.add(new Detection(cars.get(random.nextInt(cars.size())), cities[random.nextInt(cities.length)],
+                        LocalDateTime.of(2022, 10, 1, 12, 0)));
+            }
+            totalNumberOfOffences += stream.acceptAll(detections);
+            for (Detection detection : detections) {
+                singles.accept(detection);
+            }
+            tracker.mergeDetections(detections);
+            assertEquals(tracker.topViolationsByCar(10).toString(), stream.topViolationsByCar(10).toString());
+            assertEquals(tracker.topViolationsByCar(7).toString(), singles.topViolationsByCar(7).toString());
+            assertEquals(tracker.topViolationsByCity(5).stream().map(Violation::toString).collect(Collectors.toSet()),
+                    stream.topViolationsByCity(5).stream().map(Violation::toString).collect(Collectors.toSet()));
+        }
+        assertEquals(totalNumberOfOffences, stream.getTotalNumberOfOffences());
+        assertEquals(singles.getTotalNumberOfOffences(), stream.getTotalNumberOfOffences());
+        assertEquals(tracker.getViolations().toString(), stream.getViolations().toString());
+    }
+}
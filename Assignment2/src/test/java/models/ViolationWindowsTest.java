@@ -0,0 +1,106 @@
+package models;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.*;
+
+import static models.ViolationWindows.Granularity.*;
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ViolationWindowsTest {
+
+    Car volvo1, daf1, scoda;
+    ViolationWindows windows;
+
+    @BeforeEach
+    public void setup() {
+        Locale.setDefault(Locale.ENGLISH);
+        volvo1 = new Car("1-TTT-01", 5, Car.CarType.Truck, Car.FuelType.Diesel, LocalDate.of(2009,1,31));
+        daf1 = new Car("1-CCC-01", 5, Car.CarType.Coach, Car.FuelType.Diesel, LocalDate.of(2009,1,31));
+        scoda = new Car("1-AAA-02", 6, Car.CarType.Car, Car.FuelType.Gasoline, LocalDate.of(2014,1,31));
+        windows = new ViolationWindows();
+    }
+
+    @Test
+    public void tumblingAndSlidingWindowsShouldCountTheOffences() {
+        // 2022-10-03 is a Monday
+        assertNull(windows.add(new Detection(scoda, "Amsterdam", LocalDateTime.of(2022, 10, 3, 8, 0))));
+        assertNotNull(windows.add(new Detection(volvo1, "Amsterdam", LocalDateTime.of(2022, 10, 2, 23, 59, 59))));
+        windows.add(new Detection(volvo1, "Amsterdam", LocalDateTime.of(2022, 10, 3, 0, 0)));
+        windows.add(new Detection(volvo1, "Rotterdam", LocalDateTime.of(2022, 10, 3, 0, 30)));
+        windows.add(new Detection(daf1, "Rotterdam", LocalDateTime.of(2022, 10, 4, 9, 15)));
+
+        LocalDateTime monday = LocalDateTime.of(2022, 10, 3, 0, 10);
+        assertEquals(2, windows.countByCar(volvo1, HOUR, monday));
+        assertEquals(1, windows.countByCity("Amsterdam", HOUR, monday));
+        assertEquals(2, windows.countByCar(volvo1, DAY, monday));
+        assertEquals(1, windows.countByCar(volvo1, DAY, monday.minusDays(1)));
+        assertEquals(2, windows.countByCar(volvo1, WEEK, monday.plusDays(6)));
+        assertEquals(1, windows.countByCar(volvo1, WEEK, monday.minusDays(1)));
+        assertEquals(3, windows.count(WEEK, monday.plusDays(6)));
+        assertEquals(0, windows.countByCar(scoda, WEEK, monday));
+
+        assertEquals(3, windows.slidingCountByCar(volvo1, DAY, 7, monday.plusDays(1)));
+        assertEquals(3, windows.slidingCountByCar(volvo1, HOUR, 2, monday));
+        assertEquals(2, windows.slidingCountByCity("Rotterdam", DAY, 2, monday.plusDays(1)));
+        assertEquals(4, windows.slidingCount(WEEK, 2, monday));
+        assertThrows(IllegalArgumentException.class, () -> windows.slidingCount(HOUR, 169, monday));
+    }
+
+    @Test
+    public void expiredWindowsShouldNotBeCounted() {
+        ViolationWindows shortWindows = new ViolationWindows(24, 7, 2);
+        LocalDateTime start = LocalDateTime.of(2022, 10, 1, 12, 0);
+        shortWindows.add(new Violation(volvo1, "Amsterdam"), start);
+        shortWindows.add(new Violation(volvo1, "Amsterdam"), start.plusHours(24));
+        assertEquals(0, shortWindows.countByCar(volvo1, HOUR, start), "the hour has expired");
+        assertEquals(1, shortWindows.countByCar(volvo1, HOUR, start.plusHours(24)));
+        assertEquals(1, shortWindows.countByCar(volvo1, DAY, start));
+
+        // too late for the hours, still in time for the days
+        shortWindows.add(new Violation(volvo1, "Amsterdam"), start.plusMinutes(30));
+        assertEquals(0, shortWindows.countByCar(volvo1, HOUR, start.plusMinutes(30)));
+        assertEquals(2, shortWindows.countByCar(volvo1, DAY, start));
+
+        shortWindows.add(new Violation(daf1, "Amsterdam"), start.plusDays(30));
+        assertEquals(0, shortWindows.slidingCount(DAY, 7, start.plusDays(1)));
+        assertEquals(1, shortWindows.slidingCount(WEEK, 2, start.plusDays(30)));
+    }
+
+    @Test
+    public void aYearOfDetectionsShouldMatchAScan() {
+        Random random = new Random(41);
+        String[] cities = {"Amsterdam", "Rotterdam", "Den Haag", "Utrecht"};
+        Car[] cars = {volvo1, daf1};
+        LocalDateTime start = LocalDateTime.of(2022, 1, 1, 0, 0);
+        List<Detection> detections = new ArrayList<>();
+        LocalDateTime time = start;
+        for (int i = 0; i < 20000; i++) {
+            time = time.plusMinutes(random.nextInt(50));
+            // some detections arrive a little late
+            LocalDateTime detectionTime = time.minusMinutes(random.nextInt(90));
+            Detection detection = new Detection(cars[random.nextInt(2)], cities[random.nextInt(4)], detectionTime);
+            detections.add(detection);
+            windows.add(detection);
+        }
+
+        LocalDateTime end = time;
+        for (int days : List.of(1, 7, 30, 366)) {
+            for (String city : cities) {
+                long expected = detections.stream()
+                        .filter(detection -> detection.getCity().equals(city)
+                                && ChronoUnit.DAYS.between(detection.getDateTime().toLocalDate(), end.toLocalDate()) < days)
+                        .count();
+                assertEquals(expected, windows.slidingCountByCity(city, DAY, days, end), city + " in " + days + " days");
+            }
+        }
+        long expected = detections.stream()
+                .filter(detection -> detection.getCar() == volvo1 && detection.getDateTime().isAfter(end.minusHours(5).withMinute(0).withSecond(0).minusNanos(1)))
+                .count();
+        assertEquals(expected, windows.slidingCountByCar(volvo1, HOUR, 6, end));
+    }
+}